@@ -0,0 +1,52 @@
+package com.cambyze.demo.microservices.grocery.clientportal.beans;
+
+import java.util.List;
+
+/**
+ * Products searched by references with the microservice Products
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+public class ProductsLookupBean {
+
+  private List<ProductBean> products;
+  private List<String> missingReferences;
+
+
+  public ProductsLookupBean() {
+    super();
+  }
+
+
+  public ProductsLookupBean(List<ProductBean> products, List<String> missingReferences) {
+    super();
+    this.products = products;
+    this.missingReferences = missingReferences;
+  }
+
+  public List<ProductBean> getProducts() {
+    return products;
+  }
+
+  public void setProducts(List<ProductBean> products) {
+    this.products = products;
+  }
+
+  public List<String> getMissingReferences() {
+    return missingReferences;
+  }
+
+  public void setMissingReferences(List<String> missingReferences) {
+    this.missingReferences = missingReferences;
+  }
+
+
+  @Override
+  public String toString() {
+    return "ProductsLookupBean [products=" + products + ", missing references="
+        + missingReferences + "]";
+  }
+
+
+}
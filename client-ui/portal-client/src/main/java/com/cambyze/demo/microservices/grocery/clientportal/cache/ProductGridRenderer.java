@@ -0,0 +1,84 @@
+package com.cambyze.demo.microservices.grocery.clientportal.cache;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Rendering of the grid of the products (template fragments/product-grid), cached by version of
+ * the catalog
+ * <p>
+ * The grid only depends on the catalog: while the catalog does not change, the page views reuse
+ * the rendered HTML. Metrics published: portal.products.grid.renderings with the tag result cached
+ * or rendered
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class ProductGridRenderer {
+
+  private static final String TEMPLATE = "fragments/product-grid";
+
+  private final ITemplateEngine templateEngine;
+  private final Counter cached;
+  private final Counter rendered;
+  private volatile RenderedGrid lastGrid;
+
+  public ProductGridRenderer(ITemplateEngine templateEngine, MeterRegistry meterRegistry) {
+    this.templateEngine = templateEngine;
+    this.cached = Counter.builder("portal.products.grid.renderings").tag("result", "cached")
+        .register(meterRegistry);
+    this.rendered = Counter.builder("portal.products.grid.renderings").tag("result", "rendered")
+        .register(meterRegistry);
+  }
+
+  /**
+   * HTML of the grid of the products
+   * 
+   * @param catalog the catalog to display
+   * @param request current request, only used for the context path of the links
+   * @param response current response
+   * @return the HTML
+   */
+  public String render(ProductsCatalog catalog, HttpServletRequest request,
+      HttpServletResponse response) {
+    RenderedGrid grid = lastGrid;
+    if (grid != null && grid.version.equals(catalog.getVersion())) {
+      cached.increment();
+      return grid.html;
+    }
+    // The links must not contain the session of the current user
+    HttpServletResponse sharedResponse = new HttpServletResponseWrapper(response) {
+      @Override
+      public String encodeURL(String url) {
+        return url;
+      }
+    };
+    WebContext context = new WebContext(request, sharedResponse, request.getServletContext(),
+        request.getLocale());
+    context.setVariable("products", catalog.getProducts());
+    String html = templateEngine.process(TEMPLATE, context);
+    lastGrid = new RenderedGrid(catalog.getVersion(), html);
+    rendered.increment();
+    return html;
+  }
+
+  /**
+   * HTML rendered for a version of the catalog
+   */
+  private static class RenderedGrid {
+    private final String version;
+    private final String html;
+
+    private RenderedGrid(String version, String html) {
+      this.version = version;
+      this.html = html;
+    }
+  }
+}
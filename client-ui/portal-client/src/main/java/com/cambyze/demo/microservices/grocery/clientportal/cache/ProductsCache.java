@@ -0,0 +1,183 @@
+package com.cambyze.demo.microservices.grocery.clientportal.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import com.cambyze.commons.microservices.web.exceptions.RecordNotFoundException;
+import com.cambyze.demo.microservices.grocery.clientportal.beans.ProductBean;
+import com.cambyze.demo.microservices.grocery.clientportal.configuration.ProductsCacheProperties;
+import com.cambyze.demo.microservices.grocery.clientportal.proxies.MicroserviceProductsProxy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Cache of the pages of the products catalog with stale-while-revalidate
+ * <p>
+ * The cached pages are displayed immediately. After the soft time to live they are refreshed in
+ * background by a single thread, and they are still displayed while the refresh fails until the
+ * hard time to live. Only the first call and a page older than the hard time to live wait for the
+ * products service. The pages beyond cambyze.portal.products-cache.max-pages are not cached.
+ * Metrics published:
+ * <ul>
+ * <li>portal.products.cache.requests with the tag result fresh, stale or miss</li>
+ * <li>portal.products.cache.refresh: time of the loadings with the tag result success or
+ * failure</li>
+ * <li>portal.products.cache.staleness: age in seconds of the first page displayed</li>
+ * </ul>
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class ProductsCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProductsCache.class);
+  private static final String SORT = "reference";
+
+  private final MicroserviceProductsProxy microserviceProductsProxy;
+  private final ProductsCacheProperties properties;
+  private final ExecutorService refreshExecutor;
+  private final Set<Integer> refreshing = ConcurrentHashMap.newKeySet();
+  private final ConcurrentHashMap<Integer, Snapshot> snapshots =
+      new ConcurrentHashMap<Integer, Snapshot>();
+
+  private final Counter freshRequests;
+  private final Counter staleRequests;
+  private final Counter missedRequests;
+  private final Timer refreshSuccesses;
+  private final Timer refreshFailures;
+
+  public ProductsCache(MicroserviceProductsProxy microserviceProductsProxy,
+      ProductsCacheProperties properties, MeterRegistry meterRegistry) {
+    this.microserviceProductsProxy = microserviceProductsProxy;
+    this.properties = properties;
+    this.refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "products-cache-refresh");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.freshRequests = Counter.builder("portal.products.cache.requests").tag("result", "fresh")
+        .register(meterRegistry);
+    this.staleRequests = Counter.builder("portal.products.cache.requests").tag("result", "stale")
+        .register(meterRegistry);
+    this.missedRequests = Counter.builder("portal.products.cache.requests").tag("result", "miss")
+        .register(meterRegistry);
+    this.refreshSuccesses = Timer.builder("portal.products.cache.refresh")
+        .tag("result", "success").register(meterRegistry);
+    this.refreshFailures = Timer.builder("portal.products.cache.refresh")
+        .tag("result", "failure").register(meterRegistry);
+    Gauge.builder("portal.products.cache.staleness", this, ProductsCache::getAgeSeconds)
+        .baseUnit("seconds").register(meterRegistry);
+  }
+
+  /**
+   * Page of products to display
+   * 
+   * @param page number of the page starting from 0
+   * @return the cached page or the page of the service when the page is not cached, disabled or
+   *         too old
+   */
+  public ProductsCatalog getCatalog(int page) {
+    if (!properties.isEnabled() || page >= properties.getMaxPages()) {
+      return new ProductsCatalog(findProducts(page), page, properties.getPageSize());
+    }
+    Snapshot current = snapshots.get(page);
+    long ageNanos = current == null ? Long.MAX_VALUE : System.nanoTime() - current.loadedAt;
+    if (ageNanos < TimeUnit.SECONDS.toNanos(properties.getSoftTtlSeconds())) {
+      freshRequests.increment();
+      return current.catalog;
+    }
+    if (ageNanos < TimeUnit.SECONDS.toNanos(properties.getHardTtlSeconds())) {
+      staleRequests.increment();
+      if (refreshing.add(page)) {
+        refreshExecutor.execute(() -> refresh(page));
+      }
+      return current.catalog;
+    }
+    missedRequests.increment();
+    return loadIfOlderThanHardTtl(page).catalog;
+  }
+
+  /**
+   * Load the page waited by the requests, only once when they arrive together
+   */
+  private synchronized Snapshot loadIfOlderThanHardTtl(int page) {
+    Snapshot current = snapshots.get(page);
+    if (current != null && System.nanoTime() - current.loadedAt < TimeUnit.SECONDS
+        .toNanos(properties.getHardTtlSeconds())) {
+      return current;
+    }
+    return load(page);
+  }
+
+  private void refresh(int page) {
+    try {
+      load(page);
+    } catch (RuntimeException e) {
+      LOGGER.warn("Products of the page " + page
+          + " not refreshed, the cached products are still displayed: " + e.getMessage());
+    } finally {
+      refreshing.remove(page);
+    }
+  }
+
+  private Snapshot load(int page) {
+    long start = System.nanoTime();
+    try {
+      Snapshot loaded =
+          new Snapshot(new ProductsCatalog(findProducts(page), page, properties.getPageSize()),
+              System.nanoTime());
+      snapshots.put(page, loaded);
+      refreshSuccesses.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      return loaded;
+    } catch (RuntimeException e) {
+      refreshFailures.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      throw e;
+    }
+  }
+
+  /*
+   * Products of a page, empty after the last page
+   */
+  private List<ProductBean> findProducts(int page) {
+    try {
+      return microserviceProductsProxy.getProductsPage(page, properties.getPageSize(), SORT);
+    } catch (RecordNotFoundException e) {
+      return new ArrayList<ProductBean>();
+    }
+  }
+
+  private double getAgeSeconds() {
+    Snapshot current = snapshots.get(0);
+    return current == null ? 0
+        : (System.nanoTime() - current.loadedAt) / (double) TimeUnit.SECONDS.toNanos(1);
+  }
+
+  @PreDestroy
+  public void stop() {
+    refreshExecutor.shutdownNow();
+  }
+
+  /**
+   * Catalog page loaded at a given time
+   */
+  private static class Snapshot {
+    private final ProductsCatalog catalog;
+    private final long loadedAt;
+
+    private Snapshot(ProductsCatalog catalog, long loadedAt) {
+      this.catalog = catalog;
+      this.loadedAt = loadedAt;
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package com.cambyze.demo.microservices.grocery.clientportal.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.NumberFormat;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import com.cambyze.demo.microservices.grocery.clientportal.beans.ProductBean;
+
+/**
+ * Page of the products displayed by the portal, with their texts formatted once when the products
+ * are loaded
+ * <p>
+ * The version is a hash of the content of the products: two loadings of the same products have the
+ * same version, so that the rendering of the products is reused
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+public class ProductsCatalog {
+
+  private static final Locale LOCALE = new Locale("fr", "FR");
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private final List<ProductBean> products;
+  private final int page;
+  private final boolean lastPage;
+  private final String version;
+
+  /**
+   * Constructor
+   * 
+   * @param products products of the page received from the service, not shared yet
+   * @param page number of the page starting from 0
+   * @param pageSize number of products requested for the page
+   */
+  public ProductsCatalog(List<ProductBean> products, int page, int pageSize) {
+    NumberFormat fmt = NumberFormat.getCurrencyInstance(LOCALE);
+    for (ProductBean product : products) {
+      product.setTextPrice("Price: " + fmt.format(product.getPrice()));
+      product.setTextStock("current stock: " + product.getAvailable());
+    }
+    this.products = Collections.unmodifiableList(products);
+    this.page = page;
+    this.lastPage = products.size() < pageSize;
+    this.version = computeVersion(products);
+  }
+
+  public List<ProductBean> getProducts() {
+    return products;
+  }
+
+  public int getPage() {
+    return page;
+  }
+
+  public boolean isLastPage() {
+    return lastPage;
+  }
+
+  public String getVersion() {
+    return version;
+  }
+
+  private static String computeVersion(List<ProductBean> products) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+    for (ProductBean product : products) {
+      String content = product.getReference() + '\u0000' + product.getName() + '\u0000'
+          + product.getImageURL() + '\u0000' + product.getTextPrice() + '\u0000'
+          + product.getTextStock() + '\n';
+      digest.update(content.getBytes(StandardCharsets.UTF_8));
+    }
+    byte[] hash = digest.digest();
+    StringBuilder version = new StringBuilder(16);
+    for (int i = 0; i < 8; i++) {
+      version.append(HEX_DIGITS[(hash[i] >> 4) & 0xF]).append(HEX_DIGITS[hash[i] & 0xF]);
+    }
+    return version.toString();
+  }
+}
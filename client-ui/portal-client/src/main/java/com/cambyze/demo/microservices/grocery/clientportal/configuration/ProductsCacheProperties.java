@@ -0,0 +1,70 @@
+package com.cambyze.demo.microservices.grocery.clientportal.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the cache of the products displayed by the portal, properties
+ * cambyze.portal.products-cache.*
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+@ConfigurationProperties(prefix = "cambyze.portal.products-cache")
+public class ProductsCacheProperties {
+
+  private boolean enabled = true;
+
+  // Age after which the products are refreshed in background, the cached ones are still displayed
+  private long softTtlSeconds = 30;
+
+  // Age after which the cached products are no more displayed when the refresh fails
+  private long hardTtlSeconds = 600;
+
+  // Products per page of the catalog, a multiple of the 4 columns of the grid
+  private int pageSize = 24;
+
+  // Pages kept in the cache, the next ones are read from the products service at each request
+  private int maxPages = 10;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getSoftTtlSeconds() {
+    return softTtlSeconds;
+  }
+
+  public void setSoftTtlSeconds(long softTtlSeconds) {
+    this.softTtlSeconds = softTtlSeconds;
+  }
+
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  public void setPageSize(int pageSize) {
+    this.pageSize = pageSize;
+  }
+
+  public int getMaxPages() {
+    return maxPages;
+  }
+
+  public void setMaxPages(int maxPages) {
+    this.maxPages = maxPages;
+  }
+
+  public long getHardTtlSeconds() {
+    return hardTtlSeconds;
+  }
+
+  public void setHardTtlSeconds(long hardTtlSeconds) {
+    this.hardTtlSeconds = hardTtlSeconds;
+  }
+}
@@ -1,20 +1,17 @@
 package com.cambyze.demo.microservices.grocery.clientportal.configuration;
 
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import brave.sampler.Sampler;
+import org.springframework.context.annotation.Import;
+import com.cambyze.demo.microservices.grocery.tracing.AdaptiveSamplingConfiguration;
 
 /**
- * To force the tracing in tools as Zipkin
+ * Sampling of the traces sent to tools as Zipkin, configured by the properties
+ * cambyze.tracing.sampling.*
  * 
  * @author Thierry Nestelhut
  * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
  */
 @Configuration
+@Import(AdaptiveSamplingConfiguration.class)
 public class SleuthConfig {
-
-  @Bean
-  public Sampler defaultSampler() {
-    return Sampler.ALWAYS_SAMPLE;
-  }
 }
@@ -1,17 +1,25 @@
 package com.cambyze.demo.microservices.grocery.clientportal.controller;
 
-import java.text.NumberFormat;
-import java.util.List;
-import java.util.Locale;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
-import com.cambyze.demo.microservices.grocery.clientportal.beans.ProductBean;
-import com.cambyze.demo.microservices.grocery.clientportal.proxies.MicroserviceProductsProxy;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import com.cambyze.demo.microservices.grocery.clientportal.cache.ProductGridRenderer;
+import com.cambyze.demo.microservices.grocery.clientportal.cache.ProductsCache;
+import com.cambyze.demo.microservices.grocery.clientportal.cache.ProductsCatalog;
 
 /**
- * Client controller to retrieve the products and format the text to be displayed
+ * Client controller to retrieve the products and display them
+ * <p>
+ * The home page contains the first page of the products, the next pages are read in JSON by the
+ * page while the user scrolls. The texts of the products are formatted by ProductsCatalog and the
+ * grid of the first page is rendered by ProductGridRenderer once per version of the catalog
  * 
  * @author Thierry Nestelhut
  * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
@@ -20,21 +28,31 @@ import com.cambyze.demo.microservices.grocery.clientportal.proxies.MicroserviceP
 public class ClientController {
 
   @Autowired
-  MicroserviceProductsProxy microserviceProductsProxy;
+  ProductsCache productsCache;
+
+  @Autowired
+  ProductGridRenderer productGridRenderer;
 
   @RequestMapping("/")
-  public String home(Model model) {
+  public String home(Model model, HttpServletRequest request, HttpServletResponse response) {
 
-    List<ProductBean> products = microserviceProductsProxy.getProducts();
-    model.addAttribute("products", products);
-    Locale locale = new Locale("fr", "FR");
-    NumberFormat fmt = NumberFormat.getCurrencyInstance(locale);
-    for (ProductBean product : products) {
-      product.setTextPrice("Price: " + fmt.format(product.getPrice()));
-      product.setTextStock("current stock: " + product.getAvailable());
-    }
+    ProductsCatalog catalog = productsCache.getCatalog(0);
+    model.addAttribute("productGrid", productGridRenderer.render(catalog, request, response));
+    model.addAttribute("lastPage", catalog.isLastPage());
 
     return "home";
   }
 
+  /**
+   * Page of products displayed when the user scrolls
+   * 
+   * @param page number of the page starting from 0
+   * @return the products of the page with their formatted texts, empty after the last page
+   */
+  @GetMapping(value = "/products", produces = MediaType.APPLICATION_JSON_VALUE)
+  @ResponseBody
+  public ProductsCatalog getProductsPage(@RequestParam(value = "page") int page) {
+    return productsCache.getCatalog(Math.max(0, page));
+  }
+
 }
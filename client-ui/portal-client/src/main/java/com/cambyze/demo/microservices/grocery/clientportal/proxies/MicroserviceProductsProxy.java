@@ -5,7 +5,9 @@ import org.springframework.cloud.netflix.ribbon.RibbonClient;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import com.cambyze.demo.microservices.grocery.clientportal.beans.ProductBean;
+import com.cambyze.demo.microservices.grocery.clientportal.beans.ProductsLookupBean;
 
 /**
  * Proxy to interface with the microservices Products
@@ -22,6 +24,14 @@ public interface MicroserviceProductsProxy {
   @GetMapping(value = PATH_PRODUCT)
   public List<ProductBean> getProducts();
 
+  @GetMapping(value = PATH_PRODUCT)
+  public List<ProductBean> getProductsPage(@RequestParam("page") int page,
+      @RequestParam("size") int size, @RequestParam("sort") String sort);
+
   @GetMapping(value = PATH_PRODUCT + "/{reference}")
   public ProductBean getProductbyReference(@PathVariable("reference") String reference);
+
+  @GetMapping(value = PATH_PRODUCT)
+  public ProductsLookupBean getProductsByReferences(
+      @RequestParam("references") List<String> references);
 }
@@ -0,0 +1,79 @@
+/*
+ * Lazy loading of the product grid of the home page: the next page of products is read from the
+ * portal in JSON when the end of the grid becomes visible
+ *
+ * @author Thierry Nestelhut
+ */
+(function() {
+	var grid = document.getElementById('product-grid');
+	var end = document.getElementById('product-grid-end');
+	if (!grid || !end || grid.dataset.lastPage === 'true' || !('IntersectionObserver' in window)) {
+		return;
+	}
+	var row = grid.querySelector('.row');
+	var nextPage = 1;
+	var loading = false;
+
+	function createElement(tag, className, text) {
+		var element = document.createElement(tag);
+		if (className) {
+			element.className = className;
+		}
+		if (text) {
+			element.textContent = text;
+		}
+		return element;
+	}
+
+	function createCard(product) {
+		var col = createElement('div', 'col mb-4');
+		var card = createElement('div', 'card h-100');
+		var image = createElement('img', 'card-img-top');
+		image.src = product.imageURL;
+		image.loading = 'lazy';
+		var body = createElement('div', 'card-body');
+		body.appendChild(createElement('h5', 'card-title', product.name));
+		body.appendChild(createElement('p', 'card-text', product.textPrice));
+		var stock = createElement('p', 'card-text');
+		stock.appendChild(createElement('small', 'text-muted', product.textStock));
+		body.appendChild(stock);
+		var link = createElement('a', 'btn btn-primary', 'Buy it');
+		link.href = grid.dataset.orderUrl + encodeURIComponent(product.reference);
+		body.appendChild(link);
+		card.appendChild(image);
+		card.appendChild(body);
+		col.appendChild(card);
+		return col;
+	}
+
+	var observer = new IntersectionObserver(function(entries) {
+		if (loading || !entries.some(function(entry) { return entry.isIntersecting; })) {
+			return;
+		}
+		loading = true;
+		fetch(grid.dataset.productsUrl + '?page=' + nextPage, { headers: { 'Accept': 'application/json' } })
+			.then(function(response) {
+				if (!response.ok) {
+					throw new Error('HTTP status ' + response.status);
+				}
+				return response.json();
+			})
+			.then(function(catalog) {
+				var fragment = document.createDocumentFragment();
+				catalog.products.forEach(function(product) {
+					fragment.appendChild(createCard(product));
+				});
+				row.appendChild(fragment);
+				nextPage++;
+				if (catalog.lastPage) {
+					observer.disconnect();
+				}
+				loading = false;
+			})
+			.catch(function() {
+				// Retried when the end of the grid becomes visible again
+				loading = false;
+			});
+	}, { rootMargin: '600px' });
+	observer.observe(end);
+})();
@@ -0,0 +1,29 @@
+package com.cambyze.demo.microservices.grocery.gatewaycommons;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cache of the verified credentials shared by the gateways, imported by their security
+ * configuration
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Configuration
+@EnableConfigurationProperties(CredentialsCacheProperties.class)
+public class CredentialsCacheConfiguration {
+
+  @Bean
+  public VerifiedCredentialsCache verifiedCredentialsCache(CredentialsCacheProperties properties,
+      MeterRegistry meterRegistry) {
+    return new VerifiedCredentialsCache(properties, meterRegistry);
+  }
+
+  @Bean
+  public CredentialsCacheEndpoint credentialsCacheEndpoint(VerifiedCredentialsCache cache) {
+    return new CredentialsCacheEndpoint(cache);
+  }
+}
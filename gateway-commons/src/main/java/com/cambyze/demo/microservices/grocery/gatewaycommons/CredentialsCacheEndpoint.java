@@ -0,0 +1,36 @@
+package com.cambyze.demo.microservices.grocery.gatewaycommons;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.lang.Nullable;
+
+/**
+ * Actuator endpoint to remove verified credentials: DELETE /actuator/credentialscache removes all
+ * of them, DELETE /actuator/credentialscache?username=xxx only those of a user
+ * <p>
+ * The gateways restrict the endpoint to the users of the role
+ * cambyze.gateway.credentials-cache.admin-role
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Endpoint(id = "credentialscache")
+public class CredentialsCacheEndpoint {
+
+  public static final String PATH = "/actuator/credentialscache";
+
+  private final VerifiedCredentialsCache cache;
+
+  public CredentialsCacheEndpoint(VerifiedCredentialsCache cache) {
+    this.cache = cache;
+  }
+
+  @DeleteOperation
+  public void invalidate(@Nullable String username) {
+    if (username == null) {
+      cache.invalidateAll();
+    } else {
+      cache.invalidate(username);
+    }
+  }
+}
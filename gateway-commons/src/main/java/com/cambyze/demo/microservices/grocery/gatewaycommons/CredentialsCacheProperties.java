@@ -0,0 +1,56 @@
+package com.cambyze.demo.microservices.grocery.gatewaycommons;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the cache of the verified credentials, properties
+ * cambyze.gateway.credentials-cache.*
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@ConfigurationProperties(prefix = "cambyze.gateway.credentials-cache")
+public class CredentialsCacheProperties {
+
+  private boolean enabled = true;
+
+  // Time after which the credentials are verified again by the password encoder
+  private long ttlSeconds = 60;
+
+  private long maxSize = 1000;
+
+  // Role of the users allowed to remove verified credentials (see CredentialsCacheEndpoint)
+  private String adminRole = "ADMIN";
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public long getTtlSeconds() {
+    return ttlSeconds;
+  }
+
+  public void setTtlSeconds(long ttlSeconds) {
+    this.ttlSeconds = ttlSeconds;
+  }
+
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  public void setMaxSize(long maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  public String getAdminRole() {
+    return adminRole;
+  }
+
+  public void setAdminRole(String adminRole) {
+    this.adminRole = adminRole;
+  }
+}
@@ -0,0 +1,39 @@
+package com.cambyze.demo.microservices.grocery.gatewaycommons;
+
+/**
+ * Writing of the JSON lines of the access logs of the gateways, without JSON library so that a
+ * line costs only its appends
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+public final class JsonLines {
+
+  private JsonLines() {
+  }
+
+  /**
+   * Append a JSON string, escaped
+   * 
+   * @param line line being written
+   * @param value value of the string, null is written as the JSON null
+   */
+  public static void appendString(StringBuilder line, String value) {
+    if (value == null) {
+      line.append("null");
+      return;
+    }
+    line.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        line.append('\\').append(c);
+      } else if (c < 0x20) {
+        line.append(String.format("\\u%04x", (int) c));
+      } else {
+        line.append(c);
+      }
+    }
+    line.append('"');
+  }
+}
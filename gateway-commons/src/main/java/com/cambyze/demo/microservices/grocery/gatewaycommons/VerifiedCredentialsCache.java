@@ -0,0 +1,109 @@
+package com.cambyze.demo.microservices.grocery.gatewaycommons;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.Authentication;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cache of the credentials already verified by the password encoder
+ * <p>
+ * The key is a HMAC of the user name and of the password with a random secret generated at
+ * startup: the passwords are never kept and the keys are useless outside of this process. The
+ * entries expire after cambyze.gateway.credentials-cache.ttl-seconds and are all removed when the
+ * configuration changes. Metrics published: gateway.security.credentials.cache with the tag result
+ * hit or miss
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+public class VerifiedCredentialsCache {
+
+  private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+  private final Cache<String, Authentication> cache;
+  private final SecretKeySpec secret;
+  private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::createMac);
+  private final Counter hits;
+  private final Counter misses;
+
+  public VerifiedCredentialsCache(CredentialsCacheProperties properties,
+      MeterRegistry meterRegistry) {
+    this.cache = Caffeine.newBuilder().maximumSize(properties.getMaxSize())
+        .expireAfterWrite(properties.getTtlSeconds(), TimeUnit.SECONDS).build();
+    byte[] key = new byte[32];
+    new SecureRandom().nextBytes(key);
+    this.secret = new SecretKeySpec(key, HMAC_ALGORITHM);
+    this.hits = Counter.builder("gateway.security.credentials.cache").tag("result", "hit")
+        .register(meterRegistry);
+    this.misses = Counter.builder("gateway.security.credentials.cache").tag("result", "miss")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Digest of the credentials used as key of the cache
+   */
+  public String getKey(String username, String password) {
+    Mac mac = macs.get();
+    mac.update(username.getBytes(StandardCharsets.UTF_8));
+    mac.update((byte) ':');
+    return Base64.getEncoder()
+        .encodeToString(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Find the result of a previous verification
+   * 
+   * @param key digest of the credentials
+   * @return the authentication or null when the credentials must be verified
+   */
+  public Authentication get(String key) {
+    Authentication authentication = cache.getIfPresent(key);
+    if (authentication == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return authentication;
+  }
+
+  public void put(String key, Authentication authentication) {
+    cache.put(key, authentication);
+  }
+
+  /**
+   * Remove the verified credentials of a user, for instance when its password changed
+   */
+  public void invalidate(String username) {
+    cache.asMap().values()
+        .removeIf(authentication -> username.equals(authentication.getName()));
+  }
+
+  /**
+   * Remove all the verified credentials, the users may have changed in the configuration
+   */
+  @EventListener(EnvironmentChangeEvent.class)
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  private Mac createMac() {
+    try {
+      Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+      mac.init(secret);
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(HMAC_ALGORITHM + " not available", e);
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package com.cambyze.demo.microservices.grocery.idempotency;
+
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Idempotency-Key header shared by the services, imported by their configuration
+ * <p>
+ * The package is added to the packages scanned by Spring Boot for the entities and the
+ * repositories, next to the package of the application: IdempotentRequest and its DAO are found
+ * without changing the scan of the service
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Configuration
+@AutoConfigurationPackage
+@EnableConfigurationProperties(IdempotencyProperties.class)
+@EnableScheduling
+public class IdempotencyConfiguration {
+
+  @Bean
+  public IdempotencyStore idempotencyStore(IdempotencyProperties properties,
+      IdempotentRequestDao idempotentRequestDao, TransactionTemplate transactionTemplate,
+      ObjectMapper objectMapper) {
+    return new IdempotencyStore(properties, idempotentRequestDao, transactionTemplate,
+        objectMapper);
+  }
+}
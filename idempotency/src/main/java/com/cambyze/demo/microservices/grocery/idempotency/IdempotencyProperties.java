@@ -0,0 +1,45 @@
+package com.cambyze.demo.microservices.grocery.idempotency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the Idempotency-Key header, properties cambyze.demo.grocery.idempotency-* of
+ * the services
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@ConfigurationProperties(prefix = "cambyze.demo.grocery")
+public class IdempotencyProperties {
+
+  private long idempotencyCacheMaxSize = 10000;
+
+  private long idempotencyCacheTtlSeconds = 600;
+
+  private long idempotencyRetentionHours = 24;
+
+  public long getIdempotencyCacheMaxSize() {
+    return idempotencyCacheMaxSize;
+  }
+
+  public void setIdempotencyCacheMaxSize(long idempotencyCacheMaxSize) {
+    this.idempotencyCacheMaxSize = idempotencyCacheMaxSize;
+  }
+
+  public long getIdempotencyCacheTtlSeconds() {
+    return idempotencyCacheTtlSeconds;
+  }
+
+  public void setIdempotencyCacheTtlSeconds(long idempotencyCacheTtlSeconds) {
+    this.idempotencyCacheTtlSeconds = idempotencyCacheTtlSeconds;
+  }
+
+  public long getIdempotencyRetentionHours() {
+    return idempotencyRetentionHours;
+  }
+
+  public void setIdempotencyRetentionHours(long idempotencyRetentionHours) {
+    this.idempotencyRetentionHours = idempotencyRetentionHours;
+  }
+
+}
@@ -0,0 +1,203 @@
+package com.cambyze.demo.microservices.grocery.idempotency;
+
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Execution once of the creations sent with an Idempotency-Key header
+ * <p>
+ * The first request with a key is executed in the same transaction as the insertion of its key and
+ * of its response, so that its duplicates, even received by another instance, wait for its commit
+ * then fail on the key instead of creating twice. The duplicates receive the recorded response with
+ * the header Idempotent-Replayed, from a bounded memory store (one lookup) or else from the
+ * database, which keeps the responses after their expiry from the memory or a restart. A duplicate
+ * received while the first request is in progress is rejected with 409 and a key reused for another
+ * request with 422. Server errors are not recorded so that the request can be retried. The
+ * requests older than cambyze.demo.grocery.idempotency-retention-hours are removed by a scheduled
+ * task, not by the request threads
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+public class IdempotencyStore {
+
+  public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyStore.class);
+  private static final String REPLAYED_HEADER = "Idempotent-Replayed";
+  private static final long PURGE_INTERVAL_MILLIS = 60000;
+
+  private final IdempotentRequestDao idempotentRequestDao;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectMapper objectMapper;
+  private final long retentionMillis;
+  private final ConcurrentMap<String, CompletableFuture<IdempotentResponse>> responses;
+
+  public IdempotencyStore(IdempotencyProperties properties,
+      IdempotentRequestDao idempotentRequestDao, TransactionTemplate transactionTemplate,
+      ObjectMapper objectMapper) {
+    this.idempotentRequestDao = idempotentRequestDao;
+    this.transactionTemplate = transactionTemplate;
+    this.objectMapper = objectMapper;
+    this.retentionMillis = TimeUnit.HOURS.toMillis(properties.getIdempotencyRetentionHours());
+    this.responses = Caffeine.newBuilder()
+        .maximumSize(properties.getIdempotencyCacheMaxSize())
+        .expireAfterWrite(properties.getIdempotencyCacheTtlSeconds(), TimeUnit.SECONDS)
+        .<String, CompletableFuture<IdempotentResponse>>build().asMap();
+  }
+
+  /**
+   * Execute a creation once per Idempotency-Key
+   * 
+   * @param idempotencyKey the value of the header, null to execute the creation without control
+   * @param request the received entity, before any modification by the creation
+   * @param creation the creation returning its response
+   * @return the response of the creation or the response recorded for the key
+   */
+  public ResponseEntity<Object> execute(String idempotencyKey, Object request,
+      Supplier<ResponseEntity<Object>> creation) {
+    if (idempotencyKey == null) {
+      return creation.get();
+    }
+    if (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotentRequest.MAX_KEY_LENGTH) {
+      return ResponseEntity.badRequest().body("The header " + IDEMPOTENCY_KEY_HEADER
+          + " must have between 1 and " + IdempotentRequest.MAX_KEY_LENGTH + " characters");
+    }
+
+    String fingerprint = getFingerprint(request);
+    CompletableFuture<IdempotentResponse> pending = new CompletableFuture<IdempotentResponse>();
+    CompletableFuture<IdempotentResponse> existing = responses.putIfAbsent(idempotencyKey, pending);
+    if (existing != null) {
+      return replay(existing.getNow(null), fingerprint);
+    }
+
+    IdempotentResponse[] recorded = new IdempotentResponse[1];
+    ResponseEntity<Object> response;
+    try {
+      response = transactionTemplate.execute(
+          status -> executeOnce(idempotencyKey, fingerprint, creation, status, recorded));
+    } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+      // Key recorded or being recorded by another instance, or entity created with another key
+      recorded[0] =
+          idempotentRequestDao.findById(idempotencyKey).map(this::toResponse).orElse(null);
+      response = recorded[0] == null
+          ? ResponseEntity.status(HttpStatus.CONFLICT).body("The request conflicts with another")
+          : replay(recorded[0], fingerprint);
+    } catch (RuntimeException e) {
+      responses.remove(idempotencyKey, pending);
+      throw e;
+    }
+
+    if (recorded[0] == null) {
+      responses.remove(idempotencyKey, pending);
+    } else {
+      pending.complete(recorded[0]);
+    }
+    return response;
+  }
+
+  /*
+   * Creation and record of its response in one transaction, or replay of the response recorded in
+   * the database
+   */
+  private ResponseEntity<Object> executeOnce(String idempotencyKey, String fingerprint,
+      Supplier<ResponseEntity<Object>> creation, TransactionStatus status,
+      IdempotentResponse[] recorded) {
+    IdempotentRequest existingRequest = idempotentRequestDao.findById(idempotencyKey).orElse(null);
+    if (existingRequest != null) {
+      recorded[0] = toResponse(existingRequest);
+      return replay(recorded[0], fingerprint);
+    }
+    // A duplicate being created by another instance blocks here until its commit
+    IdempotentRequest newRequest = idempotentRequestDao
+        .saveAndFlush(new IdempotentRequest(idempotencyKey, fingerprint, new Date()));
+
+    ResponseEntity<Object> response = creation.get();
+    if (response.getStatusCode().is5xxServerError()) {
+      status.setRollbackOnly();
+      return response;
+    }
+    JsonNode body = response.getBody() == null ? NullNode.getInstance()
+        : objectMapper.valueToTree(response.getBody());
+    URI location = response.getHeaders().getLocation();
+    // Saved with the creation at the commit
+    newRequest.setResponse(response.getStatusCodeValue(),
+        location == null ? null : location.toString(), body.toString());
+    recorded[0] =
+        new IdempotentResponse(fingerprint, response.getStatusCodeValue(), location, body);
+    return response;
+  }
+
+  private ResponseEntity<Object> replay(IdempotentResponse recorded, String fingerprint) {
+    if (recorded == null) {
+      return ResponseEntity.status(HttpStatus.CONFLICT)
+          .body("A request with the same " + IDEMPOTENCY_KEY_HEADER + " is in progress");
+    } else if (!recorded.getFingerprint().equals(fingerprint)) {
+      return ResponseEntity.unprocessableEntity()
+          .body("The " + IDEMPOTENCY_KEY_HEADER + " has been used for another request");
+    }
+    ResponseEntity.BodyBuilder response =
+        ResponseEntity.status(recorded.getStatus()).header(REPLAYED_HEADER, "true");
+    if (recorded.getLocation() != null) {
+      response.location(recorded.getLocation());
+    }
+    return response.body(recorded.getBody());
+  }
+
+  private IdempotentResponse toResponse(IdempotentRequest request) {
+    try {
+      return new IdempotentResponse(request.getFingerprint(), request.getStatus(),
+          request.getLocation() == null ? null : URI.create(request.getLocation()),
+          objectMapper.readTree(request.getBody()));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Response recorded for " + request + " not readable", e);
+    }
+  }
+
+  /*
+   * SHA-256 of the request as received
+   */
+  private String getFingerprint(Object request) {
+    try {
+      return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256")
+          .digest(objectMapper.writeValueAsBytes(request)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Request not serializable", e);
+    }
+  }
+
+  /**
+   * Removal of the requests older than the retention, in one statement every minute
+   */
+  @Scheduled(fixedDelay = PURGE_INTERVAL_MILLIS, initialDelay = PURGE_INTERVAL_MILLIS)
+  public void purgeExpired() {
+    int purged = idempotentRequestDao
+        .deleteCreatedBefore(new Date(System.currentTimeMillis() - retentionMillis));
+    if (purged > 0) {
+      LOGGER.info("Idempotent requests removed after " + retentionMillis + " ms = " + purged);
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package com.cambyze.demo.microservices.grocery.idempotency;
+
+import java.util.Date;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * 
+ * Persistence entity for the requests received with an Idempotency-Key header and their response
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Entity
+@Table(indexes = {
+    @Index(columnList = "createdAt", name = "indIdempotentRequestCreatedAt", unique = false)})
+public class IdempotentRequest implements Persistable<String> {
+
+  public static final int MAX_KEY_LENGTH = 100;
+
+  @Id
+  @Column(length = MAX_KEY_LENGTH)
+  private String idempotencyKey;
+
+  // SHA-256 of the request body, to detect a key reused for another request
+  @Column(length = 44)
+  private String fingerprint;
+
+  private Date createdAt;
+
+  private Integer status;
+
+  @Column(length = 500)
+  private String location;
+
+  @Lob
+  private String body;
+
+  // The key is assigned: the insertion fails at once when the key is already recorded
+  @Transient
+  private boolean newRequest = true;
+
+  public IdempotentRequest() {
+    super();
+  }
+
+  public IdempotentRequest(String idempotencyKey, String fingerprint, Date createdAt) {
+    super();
+    this.idempotencyKey = idempotencyKey;
+    this.fingerprint = fingerprint;
+    this.createdAt = createdAt;
+  }
+
+  @PostLoad
+  @PostPersist
+  private void markNotNew() {
+    this.newRequest = false;
+  }
+
+  @Override
+  public String getId() {
+    return idempotencyKey;
+  }
+
+  @Override
+  public boolean isNew() {
+    return newRequest;
+  }
+
+  public String getIdempotencyKey() {
+    return idempotencyKey;
+  }
+
+  public String getFingerprint() {
+    return fingerprint;
+  }
+
+  public Date getCreatedAt() {
+    return createdAt;
+  }
+
+  public Integer getStatus() {
+    return status;
+  }
+
+  public String getLocation() {
+    return location;
+  }
+
+  public String getBody() {
+    return body;
+  }
+
+  /**
+   * Record the response sent to the request
+   */
+  public void setResponse(int status, String location, String body) {
+    this.status = status;
+    this.location = location;
+    this.body = body;
+  }
+
+  @Override
+  public String toString() {
+    return "IdempotentRequest{key=" + idempotencyKey + ", created at=" + createdAt + ", status="
+        + status + ", location=" + location + "}";
+  }
+
+}
@@ -0,0 +1,31 @@
+package com.cambyze.demo.microservices.grocery.idempotency;
+
+import java.util.Date;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * DAO for the requests received with an Idempotency-Key header
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Repository
+public interface IdempotentRequestDao extends JpaRepository<IdempotentRequest, String> {
+
+  /**
+   * Remove the requests received before a date, in one statement (using the index on the date)
+   * 
+   * @param date date of the oldest request kept
+   * @return number of removed requests
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM IdempotentRequest WHERE createdAt < :date")
+  int deleteCreatedBefore(@Param("date") Date date);
+
+}
@@ -0,0 +1,47 @@
+package com.cambyze.demo.microservices.grocery.idempotency;
+
+import java.net.URI;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Response recorded for an Idempotency-Key, replayed to the duplicates of the request
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+class IdempotentResponse {
+
+  private final String fingerprint;
+  private final int status;
+  private final URI location;
+  private final JsonNode body;
+
+  IdempotentResponse(String fingerprint, int status, URI location, JsonNode body) {
+    this.fingerprint = fingerprint;
+    this.status = status;
+    this.location = location;
+    this.body = body;
+  }
+
+  String getFingerprint() {
+    return fingerprint;
+  }
+
+  int getStatus() {
+    return status;
+  }
+
+  URI getLocation() {
+    return location;
+  }
+
+  /**
+   * Body of the response, a text sent as such, a JSON document or null
+   */
+  Object getBody() {
+    if (body.isNull()) {
+      return null;
+    }
+    return body.isTextual() ? body.asText() : body;
+  }
+}
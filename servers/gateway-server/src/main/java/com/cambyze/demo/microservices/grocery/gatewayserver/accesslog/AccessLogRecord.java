@@ -0,0 +1,50 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.accesslog;
+
+/**
+ * Slot of the access log ring buffer, allocated once and reused
+ * <p>
+ * Texts are truncated so that a record has a bounded size
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+public class AccessLogRecord {
+
+  static final int MAX_URI_LENGTH = 512;
+  static final int MAX_HEADER_LENGTH = 256;
+
+  long timestamp;
+  String method;
+  String uri;
+  String route;
+  int status;
+  String host;
+  String userAgent;
+
+  void set(long timestamp, String method, String uri, String route, int status, String host,
+      String userAgent) {
+    this.timestamp = timestamp;
+    this.method = method;
+    this.uri = truncate(uri, MAX_URI_LENGTH);
+    this.route = route;
+    this.status = status;
+    this.host = truncate(host, MAX_HEADER_LENGTH);
+    this.userAgent = truncate(userAgent, MAX_HEADER_LENGTH);
+  }
+
+  void clear() {
+    method = null;
+    uri = null;
+    route = null;
+    host = null;
+    userAgent = null;
+  }
+
+  private static String truncate(String text, int maxLength) {
+    if (text != null && text.length() > maxLength) {
+      return text.substring(0, maxLength);
+    } else {
+      return text;
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free ring buffer of access log records, for many producers (the request threads)
+ * and one consumer (the writer thread)
+ * <p>
+ * Each slot has a sequence number telling whether it is free for the producer of a position or
+ * filled for the consumer: producers claim a position by a compare and set, nobody ever waits for
+ * a lock and a full buffer is reported to the producer instead of blocking it
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+public class AccessLogRingBuffer {
+
+  private final AccessLogRecord[] records;
+  private final AtomicLongArray sequences;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  // Only read and written by the consumer
+  private long head;
+
+  /**
+   * Create the buffer
+   * 
+   * @param size number of records, rounded up to a power of 2
+   */
+  public AccessLogRingBuffer(int size) {
+    int capacity = Integer.highestOneBit(Math.max(2, size) - 1) << 1;
+    this.records = new AccessLogRecord[capacity];
+    this.sequences = new AtomicLongArray(capacity);
+    this.mask = capacity - 1;
+    for (int i = 0; i < capacity; i++) {
+      records[i] = new AccessLogRecord();
+      sequences.set(i, i);
+    }
+  }
+
+  /**
+   * Add a record, never blocks
+   * 
+   * @return false when the buffer is full and the record dropped
+   */
+  public boolean offer(long timestamp, String method, String uri, String route, int status,
+      String host, String userAgent) {
+    long position = tail.get();
+    while (true) {
+      int index = (int) position & mask;
+      long difference = sequences.get(index) - position;
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          records[index].set(timestamp, method, uri, route, status, host, userAgent);
+          // Publish the record to the consumer
+          sequences.set(index, position + 1);
+          return true;
+        }
+        position = tail.get();
+      } else if (difference < 0) {
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  /**
+   * Give the waiting records to the consumer then free their slots, by the consumer thread only
+   * 
+   * @param maxRecords maximum number of records read
+   * @param consumer processing of a record, which must not keep it
+   * @return number of records read
+   */
+  public int drain(int maxRecords, Consumer<AccessLogRecord> consumer) {
+    int count = 0;
+    while (count < maxRecords) {
+      int index = (int) head & mask;
+      if (sequences.get(index) != head + 1) {
+        break;
+      }
+      AccessLogRecord record = records[index];
+      consumer.accept(record);
+      record.clear();
+      // Free the slot for the producer of the next lap
+      sequences.set(index, head + mask + 1);
+      head++;
+      count++;
+    }
+    return count;
+  }
+}
@@ -0,0 +1,126 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.accesslog;
+
+import static com.cambyze.demo.microservices.grocery.gatewaycommons.JsonLines.appendString;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import com.cambyze.demo.microservices.grocery.gatewayserver.configuration.AccessLogProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Access log of the gateway written in JSON lines by a background thread
+ * <p>
+ * The request threads only put a record in a ring buffer. The writer thread writes the records by
+ * batches to the logger ACCESS_LOG (rolling file appender declared in logback-spring.xml), so that
+ * the latency of the requests does not depend on the log I/O. Metrics published:
+ * gateway.accesslog.records with the tag result written, sampled-out or dropped (buffer full)
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class AccessLogWriter implements Runnable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AccessLogWriter.class);
+  private static final Logger ACCESS_LOGGER = LoggerFactory.getLogger("ACCESS_LOG");
+  private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+  private final AccessLogProperties properties;
+  private final AccessLogRingBuffer buffer;
+  private final Counter written;
+  private final Counter sampledOut;
+  private final Counter dropped;
+  private final StringBuilder batch = new StringBuilder(16384);
+  private volatile boolean running;
+  private Thread thread;
+
+  public AccessLogWriter(AccessLogProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.buffer = new AccessLogRingBuffer(properties.getBufferSize());
+    this.written = Counter.builder("gateway.accesslog.records").tag("result", "written")
+        .register(meterRegistry);
+    this.sampledOut = Counter.builder("gateway.accesslog.records").tag("result", "sampled-out")
+        .register(meterRegistry);
+    this.dropped = Counter.builder("gateway.accesslog.records").tag("result", "dropped")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Record a request if it is sampled, called by the request threads
+   */
+  public void log(String method, String uri, String route, int status, String host,
+      String userAgent) {
+    double samplingRate = properties.getSamplingRate(route);
+    if (samplingRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= samplingRate) {
+      sampledOut.increment();
+    } else if (!buffer.offer(System.currentTimeMillis(), method, uri, route, status, host,
+        userAgent)) {
+      dropped.increment();
+    }
+  }
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    thread = new Thread(this, "access-log-writer");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    LockSupport.unpark(thread);
+    thread.join(TimeUnit.SECONDS.toMillis(5));
+  }
+
+  @Override
+  public void run() {
+    while (running) {
+      try {
+        if (writeBatch() == 0) {
+          LockSupport.parkNanos(IDLE_WAIT_NANOS);
+        }
+      } catch (RuntimeException e) {
+        LOGGER.error("Access log not written: " + e.getMessage());
+      }
+    }
+    // Write the last records before stopping
+    while (writeBatch() > 0) {
+    }
+  }
+
+  private int writeBatch() {
+    batch.setLength(0);
+    int count = buffer.drain(properties.getBatchSize(), this::appendJson);
+    if (count > 0) {
+      // The last line break is added by the pattern of the appender
+      batch.setLength(batch.length() - 1);
+      ACCESS_LOGGER.info(batch.toString());
+      written.increment(count);
+    }
+    return count;
+  }
+
+  private void appendJson(AccessLogRecord record) {
+    batch.append("{\"timestamp\":\"").append(Instant.ofEpochMilli(record.timestamp))
+        .append("\",\"method\":");
+    appendString(batch, record.method);
+    batch.append(",\"uri\":");
+    appendString(batch, record.uri);
+    batch.append(",\"route\":");
+    appendString(batch, record.route);
+    batch.append(",\"status\":").append(record.status).append(",\"host\":");
+    appendString(batch, record.host);
+    batch.append(",\"userAgent\":");
+    appendString(batch, record.userAgent);
+    batch.append("}\n");
+  }
+}
@@ -0,0 +1,41 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.aggregation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * REST API of the gateway aggregating several microservices in one call
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@RestController
+public class AggregationController {
+
+  private static final String PATH_AGGREGATION = "/aggregation";
+
+  @Autowired
+  private ProductOverviewAggregator productOverviewAggregator;
+
+  /**
+   * Get a product with its open orders and their payments
+   * 
+   * @param reference reference of the product
+   * @return the product, its unpaid orders each with its payments and the parts in error (the
+   *         document is partial when a microservice did not answer in time)
+   */
+  @GetMapping(value = PATH_AGGREGATION + "/products/{reference}")
+  public ResponseEntity<Object> getProductOverview(@PathVariable String reference) {
+    ObjectNode overview = productOverviewAggregator.getProductOverview(reference);
+    if (overview == null) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND)
+          .body("Product " + reference + " not found");
+    }
+    return ResponseEntity.ok(overview);
+  }
+}
@@ -0,0 +1,20 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.aggregation;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Client of the microservice Orders, called directly and not through the routes of the gateway
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@FeignClient(name = "demo-orders")
+public interface OrdersClient {
+
+  @GetMapping(value = "/orders")
+  public JsonNode getOrders(@RequestParam("productReference") String productReference,
+      @RequestParam("paid") boolean paid, @RequestParam("size") int size);
+}
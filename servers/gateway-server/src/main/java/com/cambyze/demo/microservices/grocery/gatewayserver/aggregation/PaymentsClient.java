@@ -0,0 +1,21 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.aggregation;
+
+import java.util.Collection;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Client of the microservice Payments, called directly and not through the routes of the gateway
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@FeignClient(name = "demo-payments")
+public interface PaymentsClient {
+
+  @GetMapping(value = "/payments")
+  public JsonNode getPaymentsByOrders(
+      @RequestParam("orderReferences") Collection<String> orderReferences);
+}
@@ -0,0 +1,196 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.aggregation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import com.cambyze.demo.microservices.grocery.gatewayserver.configuration.AggregationConfig;
+import com.cambyze.demo.microservices.grocery.gatewayserver.configuration.AggregationProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Overview of a product with its open orders and their payments, built from the microservices
+ * Products, Orders and Payments
+ * <p>
+ * The product and the orders are read in parallel, then the payments of the orders are read by
+ * chunks of references (cambyze.gateway.aggregation.payments-chunk-size) called in parallel, so
+ * that the time is the longest of the product and of the orders followed by their payments. Each
+ * call has its own timeout: a part not received in time, or rejected when all the threads are
+ * busy, is replaced by an error in the overview, the call itself ends with the timeout of the
+ * Feign client. At most 1000 orders are read, ordersTruncated is true when this maximum is
+ * reached. Metrics published: gateway.aggregation.requests with the tag result complete or partial
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class ProductOverviewAggregator {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProductOverviewAggregator.class);
+  private static final int MAX_ORDERS = 1000;
+  private static final String REFERENCE_ATTRIBUTE = "reference";
+  private static final String ORDER_REFERENCE_ATTRIBUTE = "orderReference";
+
+  private final ProductsClient productsClient;
+  private final OrdersClient ordersClient;
+  private final PaymentsClient paymentsClient;
+  private final Executor executor;
+  private final AggregationProperties properties;
+  private final ObjectMapper objectMapper;
+  private final Timer completeRequests;
+  private final Timer partialRequests;
+
+  public ProductOverviewAggregator(ProductsClient productsClient, OrdersClient ordersClient,
+      PaymentsClient paymentsClient,
+      @Qualifier(AggregationConfig.AGGREGATION_EXECUTOR) Executor executor,
+      AggregationProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+    this.productsClient = productsClient;
+    this.ordersClient = ordersClient;
+    this.paymentsClient = paymentsClient;
+    this.executor = executor;
+    this.properties = properties;
+    this.objectMapper = objectMapper;
+    this.completeRequests = Timer.builder("gateway.aggregation.requests")
+        .tag("result", "complete").register(meterRegistry);
+    this.partialRequests = Timer.builder("gateway.aggregation.requests").tag("result", "partial")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Build the overview of a product
+   * 
+   * @param reference reference of the product
+   * @return the overview with the parts product, orders (each with its payments), ordersTruncated
+   *         and errors, null when the product does not exist
+   */
+  public ObjectNode getProductOverview(String reference) {
+    long start = System.nanoTime();
+    CompletableFuture<JsonNode> product = call(
+        () -> productsClient.getProductbyReference(reference),
+        properties.getProductTimeoutMillis());
+    CompletableFuture<JsonNode> orders =
+        call(() -> ordersClient.getOrders(reference, false, MAX_ORDERS),
+            properties.getOrdersTimeoutMillis());
+    CompletableFuture<JsonNode> payments = orders.thenCompose(orderNodes -> {
+      List<String> orderReferences = new ArrayList<String>();
+      for (JsonNode order : orderNodes) {
+        orderReferences.add(order.path(REFERENCE_ATTRIBUTE).asText());
+      }
+      return getPayments(orderReferences);
+    });
+
+    ObjectNode errors = objectMapper.createObjectNode();
+    JsonNode productNode = getPart("product", product, errors);
+    if (productNode == null && !errors.has("product")) {
+      return null;
+    }
+    JsonNode orderNodes = getPart("orders", orders, errors);
+    JsonNode paymentNodes = orderNodes == null ? null : getPart("payments", payments, errors);
+
+    ObjectNode overview = objectMapper.createObjectNode();
+    overview.set("product", productNode);
+    overview.set("orders", composeOrders(orderNodes, paymentNodes));
+    overview.put("ordersTruncated", orderNodes != null && orderNodes.size() >= MAX_ORDERS);
+    overview.set("errors", errors);
+    (errors.size() == 0 ? completeRequests : partialRequests).record(System.nanoTime() - start,
+        TimeUnit.NANOSECONDS);
+    return overview;
+  }
+
+  /*
+   * Orders with their payments
+   */
+  private ArrayNode composeOrders(JsonNode orderNodes, JsonNode paymentNodes) {
+    ArrayNode orders = objectMapper.createArrayNode();
+    if (orderNodes == null) {
+      return orders;
+    }
+    Map<String, ArrayNode> paymentsByOrder = new HashMap<String, ArrayNode>();
+    for (JsonNode order : orderNodes) {
+      ObjectNode composedOrder = order.deepCopy();
+      ArrayNode orderPayments = composedOrder.putArray("payments");
+      paymentsByOrder.put(order.path(REFERENCE_ATTRIBUTE).asText(), orderPayments);
+      orders.add(composedOrder);
+    }
+    if (paymentNodes != null) {
+      for (JsonNode payment : paymentNodes) {
+        ArrayNode orderPayments =
+            paymentsByOrder.get(payment.path(ORDER_REFERENCE_ATTRIBUTE).asText());
+        if (orderPayments != null) {
+          orderPayments.add(payment);
+        }
+      }
+    }
+    return orders;
+  }
+
+  /*
+   * Payments of the orders, one call per chunk of order references
+   */
+  private CompletableFuture<JsonNode> getPayments(List<String> orderReferences) {
+    int chunkSize = Math.max(properties.getPaymentsChunkSize(), 1);
+    List<CompletableFuture<JsonNode>> chunks = new ArrayList<CompletableFuture<JsonNode>>();
+    for (int i = 0; i < orderReferences.size(); i += chunkSize) {
+      List<String> chunk =
+          orderReferences.subList(i, Math.min(i + chunkSize, orderReferences.size()));
+      chunks.add(call(() -> paymentsClient.getPaymentsByOrders(chunk),
+          properties.getPaymentsTimeoutMillis()));
+    }
+    return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+      ArrayNode payments = objectMapper.createArrayNode();
+      for (CompletableFuture<JsonNode> chunk : chunks) {
+        for (JsonNode payment : chunk.join()) {
+          payments.add(payment);
+        }
+      }
+      return payments;
+    });
+  }
+
+  private CompletableFuture<JsonNode> call(Supplier<JsonNode> backendCall, long timeoutMillis) {
+    try {
+      return CompletableFuture.supplyAsync(backendCall, executor).orTimeout(timeoutMillis,
+          TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // All the threads busy and the queue full: the part is missing, without waiting
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /*
+   * Result of a call, null when not found or in error (then described in errors)
+   */
+  private JsonNode getPart(String part, CompletableFuture<JsonNode> call, ObjectNode errors) {
+    try {
+      return call.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof FeignException.NotFound) {
+        // No product, or no open order
+        return "product".equals(part) ? null : objectMapper.createArrayNode();
+      }
+      String error = cause instanceof TimeoutException ? "timeout"
+          : cause instanceof RejectedExecutionException ? "rejected" : String.valueOf(cause);
+      LOGGER.warn("Part " + part + " of the product overview not received: " + error);
+      errors.put(part, error);
+      return null;
+    }
+  }
+}
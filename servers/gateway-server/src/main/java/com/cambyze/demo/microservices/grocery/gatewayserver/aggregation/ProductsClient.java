@@ -0,0 +1,19 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.aggregation;
+
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Client of the microservice Products, called directly and not through the routes of the gateway
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@FeignClient(name = "demo-products")
+public interface ProductsClient {
+
+  @GetMapping(value = "/products/{reference}")
+  public JsonNode getProductbyReference(@PathVariable("reference") String reference);
+}
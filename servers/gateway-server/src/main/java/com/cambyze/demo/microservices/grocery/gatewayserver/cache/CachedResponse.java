@@ -0,0 +1,63 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.cache;
+
+import java.util.List;
+import com.netflix.util.Pair;
+
+/**
+ * Response of a backend kept in the gateway cache
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+public class CachedResponse {
+
+  private final int statusCode;
+  private final List<Pair<String, String>> headers;
+  private final byte[] body;
+  private final boolean gzipped;
+  private final long ttlNanos;
+
+  public CachedResponse(int statusCode, List<Pair<String, String>> headers, byte[] body,
+      boolean gzipped, long ttlNanos) {
+    this.statusCode = statusCode;
+    this.headers = headers;
+    this.body = body;
+    this.gzipped = gzipped;
+    this.ttlNanos = ttlNanos;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  public List<Pair<String, String>> getHeaders() {
+    return headers;
+  }
+
+  public byte[] getBody() {
+    return body;
+  }
+
+  public boolean isGzipped() {
+    return gzipped;
+  }
+
+  public long getTtlNanos() {
+    return ttlNanos;
+  }
+
+  /**
+   * Value of a header of the response
+   * 
+   * @param name name of the header, case insensitive
+   * @return the first value of the header or null
+   */
+  public String getHeader(String name) {
+    for (Pair<String, String> header : headers) {
+      if (name.equalsIgnoreCase(header.first())) {
+        return header.second();
+      }
+    }
+    return null;
+  }
+}
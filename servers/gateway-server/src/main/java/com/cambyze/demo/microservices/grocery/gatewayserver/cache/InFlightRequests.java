@@ -0,0 +1,104 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.springframework.stereotype.Component;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Identical requests in progress (single flight): the first request of a key, the leader, calls
+ * the backend and the requests received meanwhile, the followers, wait for its response
+ * <p>
+ * Metrics published: gateway.coalescing.requests with the tag role leader, follower or fallback
+ * (follower which finally called the backend) and gateway.coalescing.inflight
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class InFlightRequests {
+
+  private final ConcurrentHashMap<String, CompletableFuture<CachedResponse>> inFlight =
+      new ConcurrentHashMap<String, CompletableFuture<CachedResponse>>();
+  private final Counter leaders;
+  private final Counter followers;
+  private final Counter fallbacks;
+
+  public InFlightRequests(MeterRegistry meterRegistry) {
+    this.leaders = Counter.builder("gateway.coalescing.requests").tag("role", "leader")
+        .register(meterRegistry);
+    this.followers = Counter.builder("gateway.coalescing.requests").tag("role", "follower")
+        .register(meterRegistry);
+    this.fallbacks = Counter.builder("gateway.coalescing.requests").tag("role", "fallback")
+        .register(meterRegistry);
+    Gauge.builder("gateway.coalescing.inflight", inFlight, ConcurrentHashMap::size)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Register a request
+   * 
+   * @param key key of the request
+   * @param ownResponse response of the request if it becomes the leader, to be given to complete
+   * @return null when the request is the leader and must call the backend, otherwise the response
+   *         of the leader to wait for
+   */
+  public CompletableFuture<CachedResponse> join(String key,
+      CompletableFuture<CachedResponse> ownResponse) {
+    CompletableFuture<CachedResponse> leaderResponse = inFlight.putIfAbsent(key, ownResponse);
+    if (leaderResponse == null) {
+      leaders.increment();
+    }
+    return leaderResponse;
+  }
+
+  /**
+   * Wait for the response of the leader
+   * 
+   * @param key key of the request
+   * @param leaderResponse response returned by join
+   * @param maxWaitMillis maximum waiting time
+   * @return the response or null when the follower must call the backend itself
+   */
+  public CachedResponse await(String key, CompletableFuture<CachedResponse> leaderResponse,
+      long maxWaitMillis) {
+    CachedResponse response = null;
+    try {
+      response = leaderResponse.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      // A leader too slow or lost is no more awaited by the next requests
+      inFlight.remove(key, leaderResponse);
+    } catch (ExecutionException e) {
+      response = null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (response == null) {
+      fallbacks.increment();
+    } else {
+      followers.increment();
+    }
+    return response;
+  }
+
+  /**
+   * Give the response of the leader to the followers, to be called by the leader in any case
+   * <p>
+   * Only the leader's own registration is removed: a leader no more awaited may have been
+   * replaced by a new leader of the same key, whose followers must keep waiting for it
+   * 
+   * @param key key of the request
+   * @param ownResponse response registered by the leader with join
+   * @param response response of the backend or null when it cannot be shared
+   */
+  public void complete(String key, CompletableFuture<CachedResponse> ownResponse,
+      CachedResponse response) {
+    inFlight.remove(key, ownResponse);
+    ownResponse.complete(response);
+  }
+}
@@ -0,0 +1,137 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+import com.cambyze.demo.microservices.grocery.gatewayserver.configuration.ResponseCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cache of the GET responses of the backends, bounded by the total size of the bodies
+ * <p>
+ * Each response expires after its own time to live. Each route has a generation incremented by
+ * its invalidations, so that a response read from the backend while the route was invalidated is
+ * not kept. Metrics published:
+ * <ul>
+ * <li>gateway.response.cache.requests with the tag result hit or miss</li>
+ * <li>gateway.response.cache.hit.ratio</li>
+ * <li>gateway.response.cache.entries and gateway.response.cache.bytes</li>
+ * <li>gateway.response.cache.bytes.saved: bytes served without calling the backends</li>
+ * </ul>
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class ResponseCache {
+
+  private final Cache<String, CachedResponse> cache;
+  private final ConcurrentHashMap<String, AtomicLong> generations =
+      new ConcurrentHashMap<String, AtomicLong>();
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter bytesSaved;
+
+  public ResponseCache(ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+    this.cache = Caffeine.newBuilder().maximumWeight(properties.getMaxBytes())
+        .weigher((String key, CachedResponse response) -> key.length()
+            + response.getBody().length)
+        .expireAfter(new Expiry<String, CachedResponse>() {
+          @Override
+          public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+            return response.getTtlNanos();
+          }
+
+          @Override
+          public long expireAfterUpdate(String key, CachedResponse response, long currentTime,
+              long currentDuration) {
+            return response.getTtlNanos();
+          }
+
+          @Override
+          public long expireAfterRead(String key, CachedResponse response, long currentTime,
+              long currentDuration) {
+            return currentDuration;
+          }
+        }).build();
+
+    this.hits = Counter.builder("gateway.response.cache.requests").tag("result", "hit")
+        .register(meterRegistry);
+    this.misses = Counter.builder("gateway.response.cache.requests").tag("result", "miss")
+        .register(meterRegistry);
+    this.bytesSaved = Counter.builder("gateway.response.cache.bytes.saved").baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder("gateway.response.cache.hit.ratio", this, ResponseCache::getHitRatio)
+        .register(meterRegistry);
+    Gauge.builder("gateway.response.cache.entries", cache, Cache::estimatedSize)
+        .register(meterRegistry);
+    Gauge
+        .builder("gateway.response.cache.bytes", cache,
+            c -> c.policy().eviction().get().weightedSize().orElse(0L))
+        .baseUnit("bytes").register(meterRegistry);
+  }
+
+  /**
+   * Find a response not expired
+   * 
+   * @param key key of the request
+   * @return the response or null
+   */
+  public CachedResponse get(String key) {
+    CachedResponse response = cache.getIfPresent(key);
+    if (response == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+      bytesSaved.increment(response.getBody().length);
+    }
+    return response;
+  }
+
+  /**
+   * Generation of a route, to be read before the request is routed to the backend
+   * 
+   * @param route the route
+   * @return the number of invalidations of the route
+   */
+  public long getGeneration(String route) {
+    return generations.computeIfAbsent(route, r -> new AtomicLong()).get();
+  }
+
+  /**
+   * Keep a response, unless the route has been invalidated since the request was routed
+   * 
+   * @param route route of the request
+   * @param generation generation of the route when the request was routed
+   * @param key key of the request
+   * @param response response of the backend
+   */
+  public void put(String route, long generation, String key, CachedResponse response) {
+    cache.put(key, response);
+    // Checked after the put: an invalidation either sees the response or changes the generation
+    if (getGeneration(route) != generation) {
+      cache.asMap().remove(key, response);
+    }
+  }
+
+  /**
+   * Remove all the responses of a route, around a modification through this route
+   * 
+   * @param route the route
+   */
+  public void invalidate(String route) {
+    generations.computeIfAbsent(route, r -> new AtomicLong()).incrementAndGet();
+    String keyPrefix = route + " ";
+    cache.asMap().keySet().removeIf(key -> key.startsWith(keyPrefix));
+  }
+
+  private double getHitRatio() {
+    double total = hits.count() + misses.count();
+    return total == 0 ? 0 : hits.count() / total;
+  }
+}
@@ -0,0 +1,80 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the access log, properties cambyze.gateway.access-log.*
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+@ConfigurationProperties(prefix = "cambyze.gateway.access-log")
+public class AccessLogProperties {
+
+  private boolean enabled = true;
+
+  // Number of records waiting to be written, rounded up to a power of 2
+  private int bufferSize = 8192;
+
+  private int batchSize = 256;
+
+  private double defaultSamplingRate = 1.0;
+
+  // Sampling rate per route, between 0 (no log) and 1 (every request)
+  private Map<String, Double> samplingRates = new HashMap<String, Double>();
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  public void setBufferSize(int bufferSize) {
+    this.bufferSize = bufferSize;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public double getDefaultSamplingRate() {
+    return defaultSamplingRate;
+  }
+
+  public void setDefaultSamplingRate(double defaultSamplingRate) {
+    this.defaultSamplingRate = defaultSamplingRate;
+  }
+
+  public Map<String, Double> getSamplingRates() {
+    return samplingRates;
+  }
+
+  public void setSamplingRates(Map<String, Double> samplingRates) {
+    this.samplingRates = samplingRates;
+  }
+
+  /**
+   * Sampling rate of a route
+   * 
+   * @param route the route, may be null
+   * @return the rate of the route or the default rate
+   */
+  public double getSamplingRate(String route) {
+    Double rate = route == null ? null : samplingRates.get(route);
+    return rate == null ? defaultSamplingRate : rate;
+  }
+}
@@ -0,0 +1,35 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.configuration;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Clients of the backends and threads used by the aggregation
+ * <p>
+ * The executor is a bean so that Sleuth propagates the trace to the calls of the backends
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Configuration
+@EnableFeignClients("com.cambyze.demo.microservices.grocery.gatewayserver.aggregation")
+public class AggregationConfig {
+
+  public static final String AGGREGATION_EXECUTOR = "aggregationExecutor";
+
+  @Bean(name = AGGREGATION_EXECUTOR)
+  public ThreadPoolTaskExecutor aggregationExecutor(AggregationProperties properties) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(properties.getThreads());
+    executor.setMaxPoolSize(properties.getThreads());
+    // Bounded queue: when it is full the call is rejected and the part is missing in the overview,
+    // the request thread never calls a backend itself without timeout
+    executor.setQueueCapacity(properties.getThreads() * 10);
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    executor.setThreadNamePrefix("aggregation-");
+    return executor;
+  }
+}
@@ -0,0 +1,68 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the aggregation of the backends, properties cambyze.gateway.aggregation.*
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+@ConfigurationProperties(prefix = "cambyze.gateway.aggregation")
+public class AggregationProperties {
+
+  // Threads calling the backends in parallel
+  private int threads = 32;
+
+  // Maximum time of each call
+  private long productTimeoutMillis = 1000;
+
+  private long ordersTimeoutMillis = 1000;
+
+  private long paymentsTimeoutMillis = 1000;
+
+  // Order references per call of the payments, to keep the query string within the header limits
+  private int paymentsChunkSize = 100;
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  public long getProductTimeoutMillis() {
+    return productTimeoutMillis;
+  }
+
+  public void setProductTimeoutMillis(long productTimeoutMillis) {
+    this.productTimeoutMillis = productTimeoutMillis;
+  }
+
+  public long getOrdersTimeoutMillis() {
+    return ordersTimeoutMillis;
+  }
+
+  public void setOrdersTimeoutMillis(long ordersTimeoutMillis) {
+    this.ordersTimeoutMillis = ordersTimeoutMillis;
+  }
+
+  public long getPaymentsTimeoutMillis() {
+    return paymentsTimeoutMillis;
+  }
+
+  public void setPaymentsTimeoutMillis(long paymentsTimeoutMillis) {
+    this.paymentsTimeoutMillis = paymentsTimeoutMillis;
+  }
+
+  public int getPaymentsChunkSize() {
+    return paymentsChunkSize;
+  }
+
+  public void setPaymentsChunkSize(int paymentsChunkSize) {
+    this.paymentsChunkSize = paymentsChunkSize;
+  }
+}
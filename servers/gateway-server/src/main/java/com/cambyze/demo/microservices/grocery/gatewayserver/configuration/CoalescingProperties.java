@@ -0,0 +1,68 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the coalescing of identical concurrent GET requests, properties
+ * cambyze.gateway.coalescing.*
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+@ConfigurationProperties(prefix = "cambyze.gateway.coalescing")
+public class CoalescingProperties {
+
+  private boolean enabled = true;
+
+  private List<String> routes = new ArrayList<String>(List.of("demo-products"));
+
+  private long maxWaitMillis = 2000;
+
+  private int maxBodyBytes = 1024 * 1024;
+
+  private List<String> varyHeaders = new ArrayList<String>(List.of("Accept"));
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public List<String> getRoutes() {
+    return routes;
+  }
+
+  public void setRoutes(List<String> routes) {
+    this.routes = routes;
+  }
+
+  public long getMaxWaitMillis() {
+    return maxWaitMillis;
+  }
+
+  public void setMaxWaitMillis(long maxWaitMillis) {
+    this.maxWaitMillis = maxWaitMillis;
+  }
+
+  public int getMaxBodyBytes() {
+    return maxBodyBytes;
+  }
+
+  public void setMaxBodyBytes(int maxBodyBytes) {
+    this.maxBodyBytes = maxBodyBytes;
+  }
+
+  public List<String> getVaryHeaders() {
+    return varyHeaders;
+  }
+
+  public void setVaryHeaders(List<String> varyHeaders) {
+    this.varyHeaders = varyHeaders;
+  }
+}
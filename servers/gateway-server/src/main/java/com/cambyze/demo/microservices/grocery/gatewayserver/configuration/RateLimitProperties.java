@@ -0,0 +1,97 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the rate limiting and of the load shedding, properties
+ * cambyze.gateway.rate-limit.*
+ * <p>
+ * The properties are bound again when the configuration is refreshed (/actuator/refresh or bus
+ * refresh), the new limits apply to the next requests without restart
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+@ConfigurationProperties(prefix = "cambyze.gateway.rate-limit")
+public class RateLimitProperties {
+
+  private boolean enabled = true;
+
+  // Limit per client of each limited route
+  private Map<String, Limit> routes = new HashMap<String, Limit>();
+
+  // Requests in progress in the gateway above which the new requests are rejected, 0 no limit
+  private int maxInFlight = 500;
+
+  // Clients with a bucket kept in memory
+  private int maxClients = 100000;
+
+  public RateLimitProperties() {
+    routes.put("demo-orders", new Limit());
+    routes.put("demo-payments", new Limit());
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Map<String, Limit> getRoutes() {
+    return routes;
+  }
+
+  public void setRoutes(Map<String, Limit> routes) {
+    this.routes = routes;
+  }
+
+  public int getMaxInFlight() {
+    return maxInFlight;
+  }
+
+  public void setMaxInFlight(int maxInFlight) {
+    this.maxInFlight = maxInFlight;
+  }
+
+  public int getMaxClients() {
+    return maxClients;
+  }
+
+  public void setMaxClients(int maxClients) {
+    this.maxClients = maxClients;
+  }
+
+  /**
+   * Token bucket of a client on a route
+   */
+  public static class Limit {
+
+    // Requests allowed in a burst
+    private int capacity = 20;
+
+    // Requests allowed per second on average
+    private double refillPerSecond = 10;
+
+    public int getCapacity() {
+      return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+      this.capacity = capacity;
+    }
+
+    public double getRefillPerSecond() {
+      return refillPerSecond;
+    }
+
+    public void setRefillPerSecond(double refillPerSecond) {
+      this.refillPerSecond = refillPerSecond;
+    }
+  }
+}
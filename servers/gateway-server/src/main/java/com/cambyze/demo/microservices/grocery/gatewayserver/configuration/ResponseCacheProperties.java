@@ -0,0 +1,77 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the cache of the GET responses, properties cambyze.gateway.response-cache.*
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+@ConfigurationProperties(prefix = "cambyze.gateway.response-cache")
+public class ResponseCacheProperties {
+
+  private boolean enabled = true;
+
+  private List<String> routes = new ArrayList<String>(List.of("demo-products"));
+
+  private long ttlSeconds = 30;
+
+  private long maxBytes = 64L * 1024 * 1024;
+
+  private int maxEntryBytes = 1024 * 1024;
+
+  private List<String> varyHeaders = new ArrayList<String>(List.of("Accept"));
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public List<String> getRoutes() {
+    return routes;
+  }
+
+  public void setRoutes(List<String> routes) {
+    this.routes = routes;
+  }
+
+  public long getTtlSeconds() {
+    return ttlSeconds;
+  }
+
+  public void setTtlSeconds(long ttlSeconds) {
+    this.ttlSeconds = ttlSeconds;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  public void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  public int getMaxEntryBytes() {
+    return maxEntryBytes;
+  }
+
+  public void setMaxEntryBytes(int maxEntryBytes) {
+    this.maxEntryBytes = maxEntryBytes;
+  }
+
+  public List<String> getVaryHeaders() {
+    return varyHeaders;
+  }
+
+  public void setVaryHeaders(List<String> varyHeaders) {
+    this.varyHeaders = varyHeaders;
+  }
+}
@@ -0,0 +1,71 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.configuration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the latency metrics per route, properties cambyze.gateway.metrics.*
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+@ConfigurationProperties(prefix = "cambyze.gateway.metrics")
+public class RouteMetricsProperties {
+
+  private boolean enabled = true;
+
+  // Percentiles calculated by the gateway
+  private List<Double> percentiles = new ArrayList<Double>(Arrays.asList(0.5, 0.9, 0.99, 0.999));
+
+  // Publish the buckets of the histogram for the percentiles aggregated by the monitoring system
+  private boolean percentileHistogram = true;
+
+  // Range of the latencies measured by the histograms
+  private long minimumExpectedMillis = 1;
+
+  private long maximumExpectedMillis = 30000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public List<Double> getPercentiles() {
+    return percentiles;
+  }
+
+  public void setPercentiles(List<Double> percentiles) {
+    this.percentiles = percentiles;
+  }
+
+  public boolean isPercentileHistogram() {
+    return percentileHistogram;
+  }
+
+  public void setPercentileHistogram(boolean percentileHistogram) {
+    this.percentileHistogram = percentileHistogram;
+  }
+
+  public long getMinimumExpectedMillis() {
+    return minimumExpectedMillis;
+  }
+
+  public void setMinimumExpectedMillis(long minimumExpectedMillis) {
+    this.minimumExpectedMillis = minimumExpectedMillis;
+  }
+
+  public long getMaximumExpectedMillis() {
+    return maximumExpectedMillis;
+  }
+
+  public void setMaximumExpectedMillis(long maximumExpectedMillis) {
+    this.maximumExpectedMillis = maximumExpectedMillis;
+  }
+}
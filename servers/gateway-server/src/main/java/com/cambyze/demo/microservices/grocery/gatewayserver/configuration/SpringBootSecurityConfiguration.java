@@ -1,28 +1,76 @@
 package com.cambyze.demo.microservices.grocery.gatewayserver.configuration;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import com.cambyze.demo.microservices.grocery.gatewaycommons.CredentialsCacheConfiguration;
+import com.cambyze.demo.microservices.grocery.gatewaycommons.CredentialsCacheEndpoint;
+import com.cambyze.demo.microservices.grocery.gatewaycommons.CredentialsCacheProperties;
+import com.cambyze.demo.microservices.grocery.gatewaycommons.VerifiedCredentialsCache;
+import com.cambyze.demo.microservices.grocery.gatewayserver.security.CachingAuthenticationProvider;
 
 /**
- * To allow to disable CSRF during development phase by setting the property
- * cambyze.security.csrf=false
+ * Security of the gateway
+ * <ul>
+ * <li>HTTP Basic credentials verified by the password encoder, then kept in the cache of the
+ * verified credentials (property cambyze.gateway.credentials-cache.enabled)</li>
+ * <li>removal of the verified credentials (DELETE /actuator/credentialscache) restricted to the
+ * users of the role cambyze.gateway.credentials-cache.admin-role</li>
+ * <li>to allow to disable CSRF during development phase by setting the property
+ * cambyze.security.csrf=false</li>
+ * </ul>
  * 
  * @author Thierry Nestelhut
  * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
  */
 @Configuration
+@Import(CredentialsCacheConfiguration.class)
 public class SpringBootSecurityConfiguration extends WebSecurityConfigurerAdapter {
 
   @Value("${cambyze.security.csrf}")
   private boolean csrfEnabled = true;
 
+  @Autowired
+  private UserDetailsService userDetailsService;
+
+  @Autowired
+  private VerifiedCredentialsCache verifiedCredentialsCache;
+
+  @Autowired
+  private CredentialsCacheProperties credentialsCacheProperties;
+
   @Override
   protected void configure(HttpSecurity http) throws Exception {
 
     if (!csrfEnabled) {
       http.csrf().disable();
     }
+    http.httpBasic();
+    http.authorizeRequests()
+        .antMatchers(HttpMethod.DELETE, CredentialsCacheEndpoint.PATH,
+            CredentialsCacheEndpoint.PATH + "/**")
+        .hasRole(credentialsCacheProperties.getAdminRole()).anyRequest().permitAll();
+  }
+
+  @Override
+  protected void configure(AuthenticationManagerBuilder auth) throws Exception {
+    DaoAuthenticationProvider passwordProvider = new DaoAuthenticationProvider();
+    passwordProvider.setUserDetailsService(userDetailsService);
+    passwordProvider.setPasswordEncoder(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+
+    if (credentialsCacheProperties.isEnabled()) {
+      auth.authenticationProvider(
+          new CachingAuthenticationProvider(passwordProvider, verifiedCredentialsCache));
+    } else {
+      auth.authenticationProvider(passwordProvider);
+    }
   }
 }
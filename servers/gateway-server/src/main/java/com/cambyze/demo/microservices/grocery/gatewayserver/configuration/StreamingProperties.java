@@ -0,0 +1,100 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the routes streamed between the client and the backend, properties
+ * cambyze.gateway.streaming.*
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+@ConfigurationProperties(prefix = "cambyze.gateway.streaming")
+public class StreamingProperties {
+
+  private boolean enabled = true;
+
+  private List<String> routes = new ArrayList<String>(List.of("demo-orders", "demo-payments"));
+
+  // Maximum size of the bodies, 0 for no limit
+  private long maxRequestBytes = 16L * 1024 * 1024;
+
+  private long maxResponseBytes = 256L * 1024 * 1024;
+
+  // Connections to the backends shared by the streamed routes
+  private int maxConnections = 200;
+
+  private int maxConnectionsPerInstance = 50;
+
+  private int connectTimeoutMillis = 2000;
+
+  private int readTimeoutMillis = 30000;
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public List<String> getRoutes() {
+    return routes;
+  }
+
+  public void setRoutes(List<String> routes) {
+    this.routes = routes;
+  }
+
+  public long getMaxRequestBytes() {
+    return maxRequestBytes;
+  }
+
+  public void setMaxRequestBytes(long maxRequestBytes) {
+    this.maxRequestBytes = maxRequestBytes;
+  }
+
+  public long getMaxResponseBytes() {
+    return maxResponseBytes;
+  }
+
+  public void setMaxResponseBytes(long maxResponseBytes) {
+    this.maxResponseBytes = maxResponseBytes;
+  }
+
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+  public void setMaxConnections(int maxConnections) {
+    this.maxConnections = maxConnections;
+  }
+
+  public int getMaxConnectionsPerInstance() {
+    return maxConnectionsPerInstance;
+  }
+
+  public void setMaxConnectionsPerInstance(int maxConnectionsPerInstance) {
+    this.maxConnectionsPerInstance = maxConnectionsPerInstance;
+  }
+
+  public int getConnectTimeoutMillis() {
+    return connectTimeoutMillis;
+  }
+
+  public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+    this.connectTimeoutMillis = connectTimeoutMillis;
+  }
+
+  public int getReadTimeoutMillis() {
+    return readTimeoutMillis;
+  }
+
+  public void setReadTimeoutMillis(int readTimeoutMillis) {
+    this.readTimeoutMillis = readTimeoutMillis;
+  }
+}
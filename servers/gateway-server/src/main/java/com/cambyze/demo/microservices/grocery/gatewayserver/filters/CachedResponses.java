@@ -0,0 +1,91 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.filters;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import com.cambyze.demo.microservices.grocery.gatewayserver.cache.CachedResponse;
+import com.netflix.util.Pair;
+import com.netflix.zuul.context.RequestContext;
+
+/**
+ * Common processing of the filters sharing backend responses between requests
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+final class CachedResponses {
+
+  private static final String CACHE_STATUS_HEADER = "X-Cache";
+
+  private CachedResponses() {}
+
+  /**
+   * Key of a request: route, path, query and the headers the response varies on
+   */
+  static String getKey(String route, HttpServletRequest request, List<String> varyHeaders) {
+    StringBuilder key = new StringBuilder(128);
+    key.append(route).append(' ').append(request.getRequestURI());
+    if (request.getQueryString() != null) {
+      key.append('?').append(request.getQueryString());
+    }
+    for (String header : varyHeaders) {
+      key.append('|').append(request.getHeader(header));
+    }
+    return key.toString();
+  }
+
+  /**
+   * Answer the request with a shared response instead of routing it to the backend
+   */
+  static void send(RequestContext ctx, CachedResponse response, String cacheStatus) {
+    ctx.setSendZuulResponse(false);
+    ctx.addZuulResponseHeader(CACHE_STATUS_HEADER, cacheStatus);
+
+    String eTag = response.getHeader(HttpHeaders.ETAG);
+    if (eTag != null && eTag.equals(ctx.getRequest().getHeader(HttpHeaders.IF_NONE_MATCH))) {
+      ctx.setResponseStatusCode(HttpServletResponse.SC_NOT_MODIFIED);
+      ctx.addZuulResponseHeader(HttpHeaders.ETAG, eTag);
+      return;
+    }
+    ctx.setResponseStatusCode(response.getStatusCode());
+    for (Pair<String, String> header : response.getHeaders()) {
+      ctx.addZuulResponseHeader(header.first(), header.second());
+    }
+    ctx.setResponseGZipped(response.isGzipped());
+    ctx.setOriginContentLength((long) response.getBody().length);
+    ctx.setResponseDataStream(new ByteArrayInputStream(response.getBody()));
+  }
+
+  /**
+   * Read the body of the backend response, which is then sent from memory
+   * 
+   * @return the response or null when its body is bigger than the maximum, it is then sent as
+   *         received
+   */
+  static CachedResponse read(RequestContext ctx, int maxBodyBytes, long ttlNanos)
+      throws IOException {
+    InputStream stream = ctx.getResponseDataStream();
+    byte[] body = stream.readNBytes(maxBodyBytes + 1);
+    if (body.length > maxBodyBytes) {
+      ctx.setResponseDataStream(new SequenceInputStream(new ByteArrayInputStream(body), stream));
+      return null;
+    }
+    stream.close();
+    ctx.setResponseDataStream(new ByteArrayInputStream(body));
+
+    List<Pair<String, String>> headers = new ArrayList<Pair<String, String>>();
+    for (Pair<String, String> header : ctx.getZuulResponseHeaders()) {
+      if (!HttpHeaders.SET_COOKIE.equalsIgnoreCase(header.first())) {
+        headers.add(header);
+      }
+    }
+    return new CachedResponse(ctx.getResponseStatusCode(), headers, body,
+        ctx.getResponseGZipped(), ttlNanos);
+  }
+}
@@ -0,0 +1,79 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.filters;
+
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.POST_TYPE;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.SEND_RESPONSE_FILTER_ORDER;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.cambyze.demo.microservices.grocery.gatewayserver.cache.CachedResponse;
+import com.cambyze.demo.microservices.grocery.gatewayserver.cache.InFlightRequests;
+import com.cambyze.demo.microservices.grocery.gatewayserver.configuration.CoalescingProperties;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+import com.netflix.zuul.exception.ZuulException;
+
+/**
+ * Filter to give the response of a leader request to the identical requests waiting for it
+ * <p>
+ * Only successful responses are shared, otherwise the waiting requests are routed normally
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class CoalescingPostFilter extends ZuulFilter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CoalescingPostFilter.class);
+
+  @Autowired
+  private InFlightRequests inFlightRequests;
+
+  @Autowired
+  private CoalescingProperties properties;
+
+  @Override
+  public boolean shouldFilter() {
+    return RequestContext.getCurrentContext().get(CoalescingRouteFilter.LEADER_KEY) != null;
+  }
+
+  @Override
+  public Object run() throws ZuulException {
+    RequestContext ctx = RequestContext.getCurrentContext();
+    CachedResponse response = null;
+    try {
+      if (ctx.getThrowable() == null
+          && ctx.getResponseStatusCode() == HttpServletResponse.SC_OK
+          && ctx.getResponseDataStream() != null) {
+        response = CachedResponses.read(ctx, properties.getMaxBodyBytes(), 0);
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Response not shared: " + e.getMessage());
+    } finally {
+      // Always release the waiting requests
+      inFlightRequests.complete((String) ctx.get(CoalescingRouteFilter.LEADER_KEY),
+          getLeaderResponse(ctx), response);
+    }
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private CompletableFuture<CachedResponse> getLeaderResponse(RequestContext ctx) {
+    return (CompletableFuture<CachedResponse>) ctx.get(CoalescingRouteFilter.LEADER_RESPONSE_KEY);
+  }
+
+  @Override
+  public String filterType() {
+    return POST_TYPE;
+  }
+
+  @Override
+  public int filterOrder() {
+    // Before ResponseCachePostFilter which reads the body already in memory
+    return SEND_RESPONSE_FILTER_ORDER - 20;
+  }
+
+}
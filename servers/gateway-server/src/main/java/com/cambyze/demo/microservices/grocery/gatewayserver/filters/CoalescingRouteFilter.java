@@ -0,0 +1,77 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.filters;
+
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.PROXY_KEY;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.RIBBON_ROUTING_FILTER_ORDER;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.ROUTE_TYPE;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.cambyze.demo.microservices.grocery.gatewayserver.cache.CachedResponse;
+import com.cambyze.demo.microservices.grocery.gatewayserver.cache.InFlightRequests;
+import com.cambyze.demo.microservices.grocery.gatewayserver.configuration.CoalescingProperties;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+import com.netflix.zuul.exception.ZuulException;
+
+/**
+ * Filter to send only one backend call for identical concurrent GET requests
+ * <p>
+ * Executed after the response cache and just before the routing: the first request is routed to
+ * the backend, the identical requests received meanwhile wait for its response (at most
+ * cambyze.gateway.coalescing.max-wait-millis) then are routed normally if it is not available
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class CoalescingRouteFilter extends ZuulFilter {
+
+  static final String LEADER_KEY = "coalescingLeaderKey";
+  static final String LEADER_RESPONSE_KEY = "coalescingLeaderResponse";
+
+  @Autowired
+  private InFlightRequests inFlightRequests;
+
+  @Autowired
+  private CoalescingProperties properties;
+
+  @Override
+  public boolean shouldFilter() {
+    RequestContext ctx = RequestContext.getCurrentContext();
+    return properties.isEnabled() && ctx.sendZuulResponse()
+        && "GET".equals(ctx.getRequest().getMethod())
+        && properties.getRoutes().contains(ctx.get(PROXY_KEY));
+  }
+
+  @Override
+  public Object run() throws ZuulException {
+    RequestContext ctx = RequestContext.getCurrentContext();
+    String key = CachedResponses.getKey((String) ctx.get(PROXY_KEY), ctx.getRequest(),
+        properties.getVaryHeaders());
+    CompletableFuture<CachedResponse> ownResponse = new CompletableFuture<CachedResponse>();
+    CompletableFuture<CachedResponse> leaderResponse = inFlightRequests.join(key, ownResponse);
+    if (leaderResponse == null) {
+      // Leader: CoalescingPostFilter shares its response
+      ctx.set(LEADER_KEY, key);
+      ctx.set(LEADER_RESPONSE_KEY, ownResponse);
+    } else {
+      CachedResponse response =
+          inFlightRequests.await(key, leaderResponse, properties.getMaxWaitMillis());
+      if (response != null) {
+        CachedResponses.send(ctx, response, "COALESCED");
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public String filterType() {
+    return ROUTE_TYPE;
+  }
+
+  @Override
+  public int filterOrder() {
+    return RIBBON_ROUTING_FILTER_ORDER - 3;
+  }
+
+}
@@ -1,15 +1,21 @@
 package com.cambyze.demo.microservices.grocery.gatewayserver.filters;
 
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.POST_TYPE;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.PROXY_KEY;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.SEND_RESPONSE_FILTER_ORDER;
 import javax.servlet.http.HttpServletRequest;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import com.cambyze.demo.microservices.grocery.gatewayserver.accesslog.AccessLogWriter;
+import com.cambyze.demo.microservices.grocery.gatewayserver.configuration.AccessLogProperties;
 import com.netflix.zuul.ZuulFilter;
 import com.netflix.zuul.context.RequestContext;
 import com.netflix.zuul.exception.ZuulException;
 
 /**
- * Filter to log any received request
+ * Filter to log any received request in the access log, with its route and its status
+ * <p>
+ * The record is only queued, it is written by the AccessLogWriter thread
  * 
  * @author Thierry Nestelhut
  * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
@@ -17,33 +23,34 @@ import com.netflix.zuul.exception.ZuulException;
 @Component
 public class LogCallsFilter extends ZuulFilter {
 
-  private static final Logger LOGGER = LoggerFactory.getLogger(LogCallsFilter.class);
-  private static final String FILTER_PRE = "pre";
+  @Autowired
+  private AccessLogWriter accessLogWriter;
+
+  @Autowired
+  private AccessLogProperties properties;
 
   @Override
   public boolean shouldFilter() {
-    return true;
+    return properties.isEnabled();
   }
 
   @Override
   public Object run() throws ZuulException {
-    HttpServletRequest request = RequestContext.getCurrentContext().getRequest();
-    String method = request.getMethod();
-    String uri = request.getRequestURI();
-    String host = request.getHeader("host");
-    String userAgent = request.getHeader("User-Agent");
-    LOGGER.info("Request: " + method + " " + uri + " from " + host + " : " + userAgent);
+    RequestContext ctx = RequestContext.getCurrentContext();
+    HttpServletRequest request = ctx.getRequest();
+    accessLogWriter.log(request.getMethod(), request.getRequestURI(), (String) ctx.get(PROXY_KEY),
+        ctx.getResponseStatusCode(), request.getHeader("host"), request.getHeader("User-Agent"));
     return null;
   }
 
   @Override
   public String filterType() {
-    return FILTER_PRE;
+    return POST_TYPE;
   }
 
   @Override
   public int filterOrder() {
-    return 1;
+    return SEND_RESPONSE_FILTER_ORDER - 1;
   }
 
 }
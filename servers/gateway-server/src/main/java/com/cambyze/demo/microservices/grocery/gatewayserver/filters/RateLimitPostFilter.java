@@ -0,0 +1,49 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.filters;
+
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.POST_TYPE;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.SEND_RESPONSE_FILTER_ORDER;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.cambyze.demo.microservices.grocery.gatewayserver.ratelimit.RateLimiter;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+import com.netflix.zuul.exception.ZuulException;
+
+/**
+ * Filter to release a request admitted by RateLimitPreFilter
+ * <p>
+ * Executed before the other post filters so that an error of one of them does not leave the
+ * request counted in progress
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class RateLimitPostFilter extends ZuulFilter {
+
+  @Autowired
+  private RateLimiter rateLimiter;
+
+  @Override
+  public boolean shouldFilter() {
+    return RequestContext.getCurrentContext().get(RateLimitPreFilter.ADMITTED_KEY) != null;
+  }
+
+  @Override
+  public Object run() throws ZuulException {
+    RequestContext.getCurrentContext().remove(RateLimitPreFilter.ADMITTED_KEY);
+    rateLimiter.release();
+    return null;
+  }
+
+  @Override
+  public String filterType() {
+    return POST_TYPE;
+  }
+
+  @Override
+  public int filterOrder() {
+    return SEND_RESPONSE_FILTER_ORDER - 120;
+  }
+
+}
@@ -0,0 +1,89 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.filters;
+
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.PRE_DECORATION_FILTER_ORDER;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.PRE_TYPE;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.PROXY_KEY;
+import java.security.Principal;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import com.cambyze.demo.microservices.grocery.gatewayserver.configuration.RateLimitProperties;
+import com.cambyze.demo.microservices.grocery.gatewayserver.ratelimit.RateLimiter;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+import com.netflix.zuul.exception.ZuulException;
+
+/**
+ * Filter to reject the requests when the gateway is overloaded (503) or when a client exceeds the
+ * limit of a route (429), with the header Retry-After
+ * <p>
+ * The client is the authenticated user or else the remote address
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class RateLimitPreFilter extends ZuulFilter {
+
+  static final String ADMITTED_KEY = "rateLimitAdmitted";
+
+  // Waiting time advised to the clients rejected by the load shedding
+  private static final String SHEDDING_RETRY_AFTER_SECONDS = "1";
+
+  @Autowired
+  private RateLimiter rateLimiter;
+
+  @Autowired
+  private RateLimitProperties properties;
+
+  @Override
+  public boolean shouldFilter() {
+    RequestContext ctx = RequestContext.getCurrentContext();
+    return properties.isEnabled() && ctx.sendZuulResponse() && ctx.get(PROXY_KEY) != null;
+  }
+
+  @Override
+  public Object run() throws ZuulException {
+    RequestContext ctx = RequestContext.getCurrentContext();
+    if (!rateLimiter.enter()) {
+      reject(ctx, HttpStatus.SERVICE_UNAVAILABLE, SHEDDING_RETRY_AFTER_SECONDS);
+      return null;
+    }
+    long waitNanos = rateLimiter.tryAcquire((String) ctx.get(PROXY_KEY), getClient(ctx));
+    if (waitNanos > 0) {
+      rateLimiter.release();
+      long retryAfterSeconds = TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1;
+      reject(ctx, HttpStatus.TOO_MANY_REQUESTS, Long.toString(retryAfterSeconds));
+    } else {
+      ctx.set(ADMITTED_KEY, Boolean.TRUE);
+    }
+    return null;
+  }
+
+  private String getClient(RequestContext ctx) {
+    HttpServletRequest request = ctx.getRequest();
+    Principal principal = request.getUserPrincipal();
+    return principal == null ? request.getRemoteAddr() : "user:" + principal.getName();
+  }
+
+  private void reject(RequestContext ctx, HttpStatus status, String retryAfterSeconds) {
+    ctx.setSendZuulResponse(false);
+    ctx.setResponseStatusCode(status.value());
+    ctx.addZuulResponseHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+    ctx.setResponseBody(status.getReasonPhrase());
+  }
+
+  @Override
+  public String filterType() {
+    return PRE_TYPE;
+  }
+
+  @Override
+  public int filterOrder() {
+    return PRE_DECORATION_FILTER_ORDER + 2;
+  }
+
+}
@@ -0,0 +1,124 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.filters;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.POST_TYPE;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.PROXY_KEY;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.SEND_RESPONSE_FILTER_ORDER;
+import java.io.IOException;
+import java.util.List;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import com.cambyze.demo.microservices.grocery.gatewayserver.cache.CachedResponse;
+import com.cambyze.demo.microservices.grocery.gatewayserver.cache.ResponseCache;
+import com.cambyze.demo.microservices.grocery.gatewayserver.configuration.ResponseCacheProperties;
+import com.netflix.util.Pair;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+import com.netflix.zuul.exception.ZuulException;
+
+/**
+ * Filter to keep in the response cache the successful responses of the GET requests not found in
+ * the cache by ResponseCacheRouteFilter, and to invalidate again the route of a successful
+ * modification: a GET answered by the backend while the modification was in progress is not kept
+ * <p>
+ * The time to live of the route is reduced to the max-age of the response, and responses with
+ * Cache-Control no-store, no-cache or private are not kept
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class ResponseCachePostFilter extends ZuulFilter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ResponseCachePostFilter.class);
+  private static final String MAX_AGE = "max-age=";
+
+  @Autowired
+  private ResponseCache responseCache;
+
+  @Autowired
+  private ResponseCacheProperties properties;
+
+  @Override
+  public boolean shouldFilter() {
+    RequestContext ctx = RequestContext.getCurrentContext();
+    if (ctx.get(ResponseCacheRouteFilter.INVALIDATED_ROUTE_KEY) != null) {
+      int status = ctx.getResponseStatusCode();
+      return ctx.getThrowable() == null && status >= 200 && status < 300;
+    }
+    return ctx.get(ResponseCacheRouteFilter.CACHE_KEY) != null && ctx.getThrowable() == null
+        && ctx.getResponseStatusCode() == HttpServletResponse.SC_OK
+        && ctx.getResponseDataStream() != null;
+  }
+
+  @Override
+  public Object run() throws ZuulException {
+    RequestContext ctx = RequestContext.getCurrentContext();
+    String invalidatedRoute = (String) ctx.get(ResponseCacheRouteFilter.INVALIDATED_ROUTE_KEY);
+    if (invalidatedRoute != null) {
+      responseCache.invalidate(invalidatedRoute);
+      return null;
+    }
+
+    long ttlSeconds = getTtlSeconds(ctx.getZuulResponseHeaders());
+    if (ttlSeconds <= 0) {
+      return null;
+    }
+
+    try {
+      CachedResponse response =
+          CachedResponses.read(ctx, properties.getMaxEntryBytes(), SECONDS.toNanos(ttlSeconds));
+      if (response != null) {
+        responseCache.put((String) ctx.get(PROXY_KEY),
+            (Long) ctx.get(ResponseCacheRouteFilter.GENERATION_KEY),
+            (String) ctx.get(ResponseCacheRouteFilter.CACHE_KEY), response);
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Response not cached: " + e.getMessage());
+    }
+    return null;
+  }
+
+  /*
+   * Time to live of the route limited by the Cache-Control of the response, 0 to not cache it
+   */
+  private long getTtlSeconds(List<Pair<String, String>> headers) {
+    long ttlSeconds = properties.getTtlSeconds();
+    for (Pair<String, String> header : headers) {
+      if (HttpHeaders.CACHE_CONTROL.equalsIgnoreCase(header.first())) {
+        String cacheControl = header.second().toLowerCase();
+        if (cacheControl.contains("no-store") || cacheControl.contains("no-cache")
+            || cacheControl.contains("private")) {
+          return 0;
+        }
+        int maxAgeIndex = cacheControl.indexOf(MAX_AGE);
+        if (maxAgeIndex >= 0) {
+          int start = maxAgeIndex + MAX_AGE.length();
+          int end = start;
+          while (end < cacheControl.length() && Character.isDigit(cacheControl.charAt(end))) {
+            end++;
+          }
+          if (end > start) {
+            ttlSeconds = Math.min(ttlSeconds, Long.parseLong(cacheControl.substring(start, end)));
+          }
+        }
+      }
+    }
+    return ttlSeconds;
+  }
+
+  @Override
+  public String filterType() {
+    return POST_TYPE;
+  }
+
+  @Override
+  public int filterOrder() {
+    return SEND_RESPONSE_FILTER_ORDER - 10;
+  }
+
+}
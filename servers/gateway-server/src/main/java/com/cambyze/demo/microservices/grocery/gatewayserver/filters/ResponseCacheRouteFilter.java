@@ -0,0 +1,87 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.filters;
+
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.PROXY_KEY;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.RIBBON_ROUTING_FILTER_ORDER;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.ROUTE_TYPE;
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import com.cambyze.demo.microservices.grocery.gatewayserver.cache.CachedResponse;
+import com.cambyze.demo.microservices.grocery.gatewayserver.cache.ResponseCache;
+import com.cambyze.demo.microservices.grocery.gatewayserver.configuration.ResponseCacheProperties;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+import com.netflix.zuul.exception.ZuulException;
+
+/**
+ * Filter to answer the GET requests of the cached routes from the response cache
+ * <p>
+ * Executed just before the routing to the backend: on a hit the response is served from the cache
+ * and the routing is skipped, on a miss the key is kept for ResponseCachePostFilter. A modification
+ * (POST, PUT, PATCH, DELETE) through a cached route removes the responses of this route, before
+ * its routing then again by ResponseCachePostFilter once it is successful
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class ResponseCacheRouteFilter extends ZuulFilter {
+
+  static final String CACHE_KEY = "responseCacheKey";
+  static final String GENERATION_KEY = "responseCacheGeneration";
+  static final String INVALIDATED_ROUTE_KEY = "responseCacheInvalidatedRoute";
+
+  @Autowired
+  private ResponseCache responseCache;
+
+  @Autowired
+  private ResponseCacheProperties properties;
+
+  @Override
+  public boolean shouldFilter() {
+    RequestContext ctx = RequestContext.getCurrentContext();
+    return properties.isEnabled() && ctx.sendZuulResponse()
+        && properties.getRoutes().contains(ctx.get(PROXY_KEY));
+  }
+
+  @Override
+  public Object run() throws ZuulException {
+    RequestContext ctx = RequestContext.getCurrentContext();
+    HttpServletRequest request = ctx.getRequest();
+    String route = (String) ctx.get(PROXY_KEY);
+    String method = request.getMethod();
+
+    if ("GET".equals(method)) {
+      String key = CachedResponses.getKey(route, request, properties.getVaryHeaders());
+      long generation = responseCache.getGeneration(route);
+      String cacheControl = request.getHeader(HttpHeaders.CACHE_CONTROL);
+      CachedResponse response = null;
+      if (cacheControl == null
+          || !(cacheControl.contains("no-cache") || cacheControl.contains("no-store"))) {
+        response = responseCache.get(key);
+      }
+      if (response == null) {
+        ctx.set(CACHE_KEY, key);
+        ctx.set(GENERATION_KEY, generation);
+      } else {
+        CachedResponses.send(ctx, response, "HIT");
+      }
+    } else if (!"HEAD".equals(method) && !"OPTIONS".equals(method)) {
+      responseCache.invalidate(route);
+      ctx.set(INVALIDATED_ROUTE_KEY, route);
+    }
+    return null;
+  }
+
+  @Override
+  public String filterType() {
+    return ROUTE_TYPE;
+  }
+
+  @Override
+  public int filterOrder() {
+    return RIBBON_ROUTING_FILTER_ORDER - 4;
+  }
+
+}
@@ -0,0 +1,59 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.filters;
+
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.POST_TYPE;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.PROXY_KEY;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.SEND_RESPONSE_FILTER_ORDER;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.cambyze.demo.microservices.grocery.gatewayserver.metrics.RouteMetrics;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+import com.netflix.zuul.exception.ZuulException;
+
+/**
+ * Filter to record the times of a request in the metrics of its route
+ * <p>
+ * Executed before the other post filters so that an error of one of them does not leave the
+ * request counted in progress
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class RouteMetricsPostFilter extends ZuulFilter {
+
+  @Autowired
+  private RouteMetrics routeMetrics;
+
+  @Override
+  public boolean shouldFilter() {
+    return RequestContext.getCurrentContext().get(RouteMetricsPreFilter.START_KEY) != null;
+  }
+
+  @Override
+  public Object run() throws ZuulException {
+    RequestContext ctx = RequestContext.getCurrentContext();
+    long totalNanos = System.nanoTime() - (Long) ctx.remove(RouteMetricsPreFilter.START_KEY);
+    Long upstreamNanos = (Long) ctx.get(RouteMetricsRouteFilter.UPSTREAM_KEY);
+    Long upstreamStart = (Long) ctx.get(RouteMetricsUpstreamFilter.UPSTREAM_START_KEY);
+    if (upstreamNanos == null && upstreamStart != null) {
+      // The call of the microservice failed (error or timeout): the route filter did not record
+      // its time, which is measured until this post filter
+      upstreamNanos = System.nanoTime() - upstreamStart;
+    }
+    routeMetrics.stop((String) ctx.get(PROXY_KEY), ctx.getResponseStatusCode(), totalNanos,
+        upstreamNanos == null ? -1 : upstreamNanos);
+    return null;
+  }
+
+  @Override
+  public String filterType() {
+    return POST_TYPE;
+  }
+
+  @Override
+  public int filterOrder() {
+    return SEND_RESPONSE_FILTER_ORDER - 110;
+  }
+
+}
@@ -0,0 +1,54 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.filters;
+
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.PRE_DECORATION_FILTER_ORDER;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.PRE_TYPE;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.PROXY_KEY;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.cambyze.demo.microservices.grocery.gatewayserver.configuration.RouteMetricsProperties;
+import com.cambyze.demo.microservices.grocery.gatewayserver.metrics.RouteMetrics;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+import com.netflix.zuul.exception.ZuulException;
+
+/**
+ * Filter to start the measure of a request, once its route is known
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class RouteMetricsPreFilter extends ZuulFilter {
+
+  static final String START_KEY = "routeMetricsStart";
+
+  @Autowired
+  private RouteMetrics routeMetrics;
+
+  @Autowired
+  private RouteMetricsProperties properties;
+
+  @Override
+  public boolean shouldFilter() {
+    return properties.isEnabled() && RequestContext.getCurrentContext().get(PROXY_KEY) != null;
+  }
+
+  @Override
+  public Object run() throws ZuulException {
+    RequestContext ctx = RequestContext.getCurrentContext();
+    ctx.set(START_KEY, System.nanoTime());
+    routeMetrics.start((String) ctx.get(PROXY_KEY));
+    return null;
+  }
+
+  @Override
+  public String filterType() {
+    return PRE_TYPE;
+  }
+
+  @Override
+  public int filterOrder() {
+    return PRE_DECORATION_FILTER_ORDER + 1;
+  }
+
+}
@@ -0,0 +1,50 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.filters;
+
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.RIBBON_ROUTING_FILTER_ORDER;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.ROUTE_TYPE;
+import org.springframework.stereotype.Component;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+import com.netflix.zuul.exception.ZuulException;
+
+/**
+ * Filter to measure the call to the backend, executed just after the routing
+ * <p>
+ * The call starts in RouteMetricsUpstreamFilter, after the response cache and the coalescing.
+ * The time of the call ends when the status and the headers of the backend response are received,
+ * the body is read by the post filters. A request answered by the gateway itself (cache,
+ * coalescing) has no time of call
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class RouteMetricsRouteFilter extends ZuulFilter {
+
+  static final String UPSTREAM_KEY = "routeMetricsUpstream";
+
+  @Override
+  public boolean shouldFilter() {
+    RequestContext ctx = RequestContext.getCurrentContext();
+    return ctx.sendZuulResponse() && ctx.get(RouteMetricsUpstreamFilter.UPSTREAM_START_KEY) != null;
+  }
+
+  @Override
+  public Object run() throws ZuulException {
+    RequestContext ctx = RequestContext.getCurrentContext();
+    ctx.set(UPSTREAM_KEY,
+        System.nanoTime() - (Long) ctx.get(RouteMetricsUpstreamFilter.UPSTREAM_START_KEY));
+    return null;
+  }
+
+  @Override
+  public String filterType() {
+    return ROUTE_TYPE;
+  }
+
+  @Override
+  public int filterOrder() {
+    return RIBBON_ROUTING_FILTER_ORDER + 1;
+  }
+
+}
@@ -0,0 +1,46 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.filters;
+
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.RIBBON_ROUTING_FILTER_ORDER;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.ROUTE_TYPE;
+import org.springframework.stereotype.Component;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+import com.netflix.zuul.exception.ZuulException;
+
+/**
+ * Filter to start the measure of the call to the backend, executed just before the routing
+ * <p>
+ * Executed after the response cache and the coalescing so that their lookup and waiting time are
+ * counted in the gateway overhead, not in the time of the call
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class RouteMetricsUpstreamFilter extends ZuulFilter {
+
+  static final String UPSTREAM_START_KEY = "routeMetricsUpstreamStart";
+
+  @Override
+  public boolean shouldFilter() {
+    RequestContext ctx = RequestContext.getCurrentContext();
+    return ctx.sendZuulResponse() && ctx.get(RouteMetricsPreFilter.START_KEY) != null;
+  }
+
+  @Override
+  public Object run() throws ZuulException {
+    RequestContext.getCurrentContext().set(UPSTREAM_START_KEY, System.nanoTime());
+    return null;
+  }
+
+  @Override
+  public String filterType() {
+    return ROUTE_TYPE;
+  }
+
+  @Override
+  public int filterOrder() {
+    return RIBBON_ROUTING_FILTER_ORDER - 2;
+  }
+
+}
@@ -0,0 +1,149 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.filters;
+
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.PROXY_KEY;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.RIBBON_ROUTING_FILTER_ORDER;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.ROUTE_TYPE;
+import static org.springframework.cloud.netflix.zuul.filters.support.FilterConstants.SERVICE_ID_KEY;
+import java.io.IOException;
+import java.net.URI;
+import javax.servlet.http.HttpServletRequest;
+import org.apache.http.Header;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerClient;
+import org.springframework.cloud.netflix.zuul.filters.ProxyRequestHelper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import com.cambyze.demo.microservices.grocery.gatewayserver.configuration.StreamingProperties;
+import com.cambyze.demo.microservices.grocery.gatewayserver.streaming.BoundedInputStream;
+import com.cambyze.demo.microservices.grocery.gatewayserver.streaming.StreamingProxy;
+import com.netflix.zuul.ZuulFilter;
+import com.netflix.zuul.context.RequestContext;
+import com.netflix.zuul.exception.ZuulException;
+
+/**
+ * Filter to route the requests of the streamed routes instead of the Ribbon routing, which keeps
+ * the whole request body in memory to be able to retry it
+ * <p>
+ * The request body is sent to the backend while it is received and the response body is sent to
+ * the client by SendResponseFilter while it is received. A body announced bigger than its maximum
+ * is rejected before the call (413 for a request, 502 for a response), a body discovered bigger
+ * while it is streamed is stopped: the request is rejected with 413 and the response is cut
+ * <p>
+ * The call is executed through the Ribbon load balancer, which records the statistics of the
+ * instance (active requests, response time, connection failures) so that a failing instance is
+ * avoided as with the Ribbon routing. The call is not wrapped in a Hystrix command: it is limited
+ * by the timeouts of StreamingProperties only, and the requests are not retried
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class StreamingRouteFilter extends ZuulFilter {
+
+  // Response closed by SendResponseFilter once sent, as for the Ribbon routing
+  private static final String ZUUL_RESPONSE_KEY = "zuulResponse";
+
+  @Autowired
+  private StreamingProxy streamingProxy;
+
+  @Autowired
+  private StreamingProperties properties;
+
+  @Autowired
+  private LoadBalancerClient loadBalancer;
+
+  @Autowired
+  private ProxyRequestHelper helper;
+
+  @Override
+  public boolean shouldFilter() {
+    RequestContext ctx = RequestContext.getCurrentContext();
+    return properties.isEnabled() && ctx.sendZuulResponse() && ctx.getRouteHost() == null
+        && ctx.get(SERVICE_ID_KEY) != null && properties.getRoutes().contains(ctx.get(PROXY_KEY));
+  }
+
+  @Override
+  public Object run() throws ZuulException {
+    RequestContext ctx = RequestContext.getCurrentContext();
+    HttpServletRequest request = ctx.getRequest();
+    // The routing is done here, the Ribbon routing is skipped
+    ctx.setSendZuulResponse(false);
+
+    long contentLength = request.getContentLengthLong();
+    if (streamingProxy.isRequestTooLarge(contentLength)) {
+      reject(ctx, HttpStatus.PAYLOAD_TOO_LARGE);
+      return null;
+    }
+    URI requestUri = URI.create(helper.buildZuulRequestURI(request)
+        + helper.getQueryString(helper.buildZuulRequestQueryParams(request)));
+
+    BoundedInputStream body = null;
+    try {
+      if (contentLength > 0 || request.getHeader(HttpHeaders.TRANSFER_ENCODING) != null) {
+        body = streamingProxy.boundRequest(request.getInputStream());
+      }
+      BoundedInputStream requestBody = body;
+      CloseableHttpResponse response = loadBalancer.execute((String) ctx.get(SERVICE_ID_KEY),
+          instance -> streamingProxy.execute(request.getMethod(),
+              loadBalancer.reconstructURI(instance, requestUri),
+              helper.buildZuulRequestHeaders(request), requestBody, contentLength));
+      setUpstreamTime(ctx);
+      ctx.set(ZUUL_RESPONSE_KEY, response);
+
+      MultiValueMap<String, String> headers = new LinkedMultiValueMap<String, String>();
+      for (Header header : response.getAllHeaders()) {
+        headers.add(header.getName(), header.getValue());
+      }
+      if (response.getEntity() == null) {
+        helper.setResponse(response.getStatusLine().getStatusCode(), null, headers);
+      } else if (streamingProxy.isResponseTooLarge(response.getEntity().getContentLength())) {
+        response.close();
+        reject(ctx, HttpStatus.BAD_GATEWAY);
+      } else {
+        helper.setResponse(response.getStatusLine().getStatusCode(),
+            streamingProxy.boundResponse(response), headers);
+      }
+    } catch (IllegalStateException e) {
+      // No instance of the service available
+      reject(ctx, HttpStatus.SERVICE_UNAVAILABLE);
+    } catch (IOException e) {
+      if (body != null && body.isExceeded()) {
+        reject(ctx, HttpStatus.PAYLOAD_TOO_LARGE);
+      } else {
+        throw new ZuulException(e, HttpStatus.BAD_GATEWAY.value(), e.getMessage());
+      }
+    }
+    return null;
+  }
+
+  /*
+   * Time of the call to the backend for the route metrics, from the start recorded by
+   * RouteMetricsUpstreamFilter, measured by RouteMetricsRouteFilter for the other routes
+   */
+  private void setUpstreamTime(RequestContext ctx) {
+    Long start = (Long) ctx.get(RouteMetricsUpstreamFilter.UPSTREAM_START_KEY);
+    if (start != null) {
+      ctx.set(RouteMetricsRouteFilter.UPSTREAM_KEY, System.nanoTime() - start);
+    }
+  }
+
+  private void reject(RequestContext ctx, HttpStatus status) {
+    ctx.setResponseStatusCode(status.value());
+    ctx.setResponseBody(status.getReasonPhrase());
+  }
+
+  @Override
+  public String filterType() {
+    return ROUTE_TYPE;
+  }
+
+  @Override
+  public int filterOrder() {
+    return RIBBON_ROUTING_FILTER_ORDER - 1;
+  }
+
+}
@@ -0,0 +1,131 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.springframework.stereotype.Component;
+import com.cambyze.demo.microservices.grocery.gatewayserver.configuration.RouteMetricsProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Latency and throughput metrics of the gateway per route
+ * <p>
+ * Metrics published:
+ * <ul>
+ * <li>gateway.route.requests: total time in the gateway per route and status</li>
+ * <li>gateway.route.upstream: time of the call to the backend per route and status</li>
+ * <li>gateway.route.overhead: time spent in the gateway itself per route</li>
+ * <li>gateway.route.inflight: requests in progress per route</li>
+ * </ul>
+ * The timers publish the configured percentiles (calculated with HdrHistogram) and optionally
+ * their histogram buckets. They are created once per route and status and then reused, so that
+ * recording a request does not allocate
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class RouteMetrics {
+
+  private static final int MAX_STATUS = 600;
+
+  private final MeterRegistry meterRegistry;
+  private final RouteMetricsProperties properties;
+  private final ConcurrentHashMap<String, RouteMeters> routes =
+      new ConcurrentHashMap<String, RouteMeters>();
+
+  public RouteMetrics(MeterRegistry meterRegistry, RouteMetricsProperties properties) {
+    this.meterRegistry = meterRegistry;
+    this.properties = properties;
+  }
+
+  /**
+   * Count a request in progress on a route
+   */
+  public void start(String route) {
+    getRouteMeters(route).inFlight.incrementAndGet();
+  }
+
+  /**
+   * Record the times of a finished request
+   * 
+   * @param route the route
+   * @param status status code of the response
+   * @param totalNanos time from the reception of the request to the response
+   * @param upstreamNanos time of the call to the backend, negative when not called
+   */
+  public void stop(String route, int status, long totalNanos, long upstreamNanos) {
+    RouteMeters meters = getRouteMeters(route);
+    meters.inFlight.decrementAndGet();
+    if (status < 0 || status >= MAX_STATUS) {
+      status = 0;
+    }
+    getTimer(meters.total, "gateway.route.requests", route, status).record(totalNanos,
+        TimeUnit.NANOSECONDS);
+    if (upstreamNanos >= 0) {
+      getTimer(meters.upstream, "gateway.route.upstream", route, status).record(upstreamNanos,
+          TimeUnit.NANOSECONDS);
+      meters.overhead.record(Math.max(0, totalNanos - upstreamNanos), TimeUnit.NANOSECONDS);
+    } else {
+      meters.overhead.record(totalNanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private RouteMeters getRouteMeters(String route) {
+    RouteMeters meters = routes.get(route);
+    if (meters == null) {
+      meters = routes.computeIfAbsent(route, this::createRouteMeters);
+    }
+    return meters;
+  }
+
+  private RouteMeters createRouteMeters(String route) {
+    RouteMeters meters = new RouteMeters(
+        timerBuilder("gateway.route.overhead").tag("route", route).register(meterRegistry));
+    Gauge.builder("gateway.route.inflight", meters.inFlight, AtomicInteger::get)
+        .tag("route", route).register(meterRegistry);
+    return meters;
+  }
+
+  private Timer getTimer(AtomicReferenceArray<Timer> timers, String name, String route,
+      int status) {
+    Timer timer = timers.get(status);
+    if (timer == null) {
+      // Micrometer returns the same timer when registered concurrently
+      timer = timerBuilder(name).tag("route", route).tag("status", Integer.toString(status))
+          .register(meterRegistry);
+      timers.set(status, timer);
+    }
+    return timer;
+  }
+
+  private Timer.Builder timerBuilder(String name) {
+    double[] percentiles = new double[properties.getPercentiles().size()];
+    for (int i = 0; i < percentiles.length; i++) {
+      percentiles[i] = properties.getPercentiles().get(i);
+    }
+    return Timer.builder(name).publishPercentiles(percentiles)
+        .publishPercentileHistogram(properties.isPercentileHistogram())
+        .minimumExpectedValue(Duration.ofMillis(properties.getMinimumExpectedMillis()))
+        .maximumExpectedValue(Duration.ofMillis(properties.getMaximumExpectedMillis()));
+  }
+
+  /**
+   * Meters of a route, the timers per status are indexed by the status code
+   */
+  private static class RouteMeters {
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicReferenceArray<Timer> total = new AtomicReferenceArray<Timer>(MAX_STATUS);
+    private final AtomicReferenceArray<Timer> upstream =
+        new AtomicReferenceArray<Timer>(MAX_STATUS);
+    private final Timer overhead;
+
+    private RouteMeters(Timer overhead) {
+      this.overhead = overhead;
+    }
+  }
+}
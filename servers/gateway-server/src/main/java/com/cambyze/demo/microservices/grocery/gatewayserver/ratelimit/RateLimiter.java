@@ -0,0 +1,90 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.stereotype.Component;
+import com.cambyze.demo.microservices.grocery.gatewayserver.configuration.RateLimitProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Rate limiting per client and route, and load shedding of the gateway
+ * <p>
+ * The buckets of the clients are kept while they are used, the oldest are removed above
+ * cambyze.gateway.rate-limit.max-clients. Metrics published: gateway.ratelimit.rejected with the
+ * tag reason rate-limit or load-shedding and gateway.ratelimit.inflight
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class RateLimiter {
+
+  // Time without request after which a bucket is full again in any reasonable configuration
+  private static final long BUCKET_IDLE_MINUTES = 10;
+
+  private final RateLimitProperties properties;
+  private final Cache<String, TokenBucket> buckets;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final Counter rateLimited;
+  private final Counter shed;
+
+  public RateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.buckets = Caffeine.newBuilder().maximumSize(properties.getMaxClients())
+        .expireAfterAccess(BUCKET_IDLE_MINUTES, TimeUnit.MINUTES).build();
+    this.rateLimited = Counter.builder("gateway.ratelimit.rejected").tag("reason", "rate-limit")
+        .register(meterRegistry);
+    this.shed = Counter.builder("gateway.ratelimit.rejected").tag("reason", "load-shedding")
+        .register(meterRegistry);
+    Gauge.builder("gateway.ratelimit.inflight", inFlight, AtomicInteger::get)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Admit a request in the gateway, to be released by release when admitted
+   * 
+   * @return true when the number of requests in progress is under the limit
+   */
+  public boolean enter() {
+    int maxInFlight = properties.getMaxInFlight();
+    if (inFlight.incrementAndGet() > maxInFlight && maxInFlight > 0) {
+      inFlight.decrementAndGet();
+      shed.increment();
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Release a request admitted by enter
+   */
+  public void release() {
+    inFlight.decrementAndGet();
+  }
+
+  /**
+   * Take a token in the bucket of a client on a route
+   * 
+   * @param route the route
+   * @param client the client
+   * @return 0 when the request is allowed, otherwise the nanoseconds to wait before retrying
+   */
+  public long tryAcquire(String route, String client) {
+    RateLimitProperties.Limit limit = properties.getRoutes().get(route);
+    if (limit == null || limit.getRefillPerSecond() <= 0) {
+      return 0;
+    }
+    long now = System.nanoTime();
+    TokenBucket bucket = buckets.get(route + " " + client, key -> new TokenBucket(now));
+    long waitNanos = bucket.tryAcquire(now, Math.max(1, limit.getCapacity()),
+        limit.getRefillPerSecond());
+    if (waitNanos > 0) {
+      rateLimited.increment();
+    }
+    return waitNanos;
+  }
+}
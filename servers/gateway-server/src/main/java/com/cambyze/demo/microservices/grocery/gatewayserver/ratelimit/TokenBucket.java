@@ -0,0 +1,48 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket of a client on a route
+ * <p>
+ * Instead of a number of tokens, the bucket keeps the time at which it will be full again
+ * (generic cell rate algorithm): a request takes one token by moving this time forward by the
+ * interval between two tokens, and is refused when the time would go further than the capacity of
+ * the bucket. The state is a single long updated by compare-and-set, and the limit is given at
+ * each request so that a new configuration applies to the existing buckets
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+public class TokenBucket {
+
+  private final AtomicLong fullAtNanos;
+
+  public TokenBucket(long nowNanos) {
+    this.fullAtNanos = new AtomicLong(nowNanos);
+  }
+
+  /**
+   * Take a token
+   * 
+   * @param nowNanos current time (System.nanoTime)
+   * @param capacity tokens of the full bucket
+   * @param refillPerSecond tokens added per second
+   * @return 0 when the token is taken, otherwise the nanoseconds to wait for the next token
+   */
+  public long tryAcquire(long nowNanos, int capacity, double refillPerSecond) {
+    long intervalNanos = (long) (1_000_000_000L / refillPerSecond);
+    long toleranceNanos = intervalNanos * capacity;
+    while (true) {
+      long fullAt = fullAtNanos.get();
+      long newFullAt = Math.max(fullAt, nowNanos) + intervalNanos;
+      long waitNanos = newFullAt - nowNanos - toleranceNanos;
+      if (waitNanos > 0) {
+        return waitNanos;
+      }
+      if (fullAtNanos.compareAndSet(fullAt, newFullAt)) {
+        return 0;
+      }
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.security;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import com.cambyze.demo.microservices.grocery.gatewaycommons.VerifiedCredentialsCache;
+
+/**
+ * Authentication provider which verifies the credentials of a user once and then reuses the
+ * result during the time to live of the cache
+ * <p>
+ * Only the successful verifications are cached, wrong credentials are always verified by the
+ * delegate
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+  private final AuthenticationProvider delegate;
+  private final VerifiedCredentialsCache cache;
+
+  public CachingAuthenticationProvider(AuthenticationProvider delegate,
+      VerifiedCredentialsCache cache) {
+    this.delegate = delegate;
+    this.cache = cache;
+  }
+
+  @Override
+  public Authentication authenticate(Authentication authentication)
+      throws AuthenticationException {
+    Object credentials = authentication.getCredentials();
+    if (authentication.getName() == null || credentials == null) {
+      return delegate.authenticate(authentication);
+    }
+    String key = cache.getKey(authentication.getName(), credentials.toString());
+    Authentication result = cache.get(key);
+    if (result == null) {
+      result = delegate.authenticate(authentication);
+      if (result != null && result.isAuthenticated()) {
+        cache.put(key, result);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public boolean supports(Class<?> authentication) {
+    return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication)
+        && delegate.supports(authentication);
+  }
+}
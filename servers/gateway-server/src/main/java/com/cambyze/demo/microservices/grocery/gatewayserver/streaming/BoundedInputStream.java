@@ -0,0 +1,97 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.streaming;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import io.micrometer.core.instrument.Counter;
+
+/**
+ * Body streamed through the gateway, failing as soon as it exceeds its maximum size
+ * <p>
+ * Nothing is kept in memory: the bytes are only counted while they are read. When the stream is
+ * closed before its end (client gone, maximum exceeded), the abort action is called instead of
+ * closing the source, so that the rest of the body is not read for nothing
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+public class BoundedInputStream extends FilterInputStream {
+
+  private final long maxBytes;
+  private final Counter exceededCounter;
+  private final Closeable abort;
+  private long count;
+  private boolean exceeded;
+  private boolean ended;
+
+  /**
+   * @param in the source of the body
+   * @param maxBytes the maximum size of the body, 0 for no limit
+   * @param exceededCounter the counter incremented when the maximum is exceeded
+   * @param abort the action releasing the source when closed before its end, null to close it
+   */
+  BoundedInputStream(InputStream in, long maxBytes, Counter exceededCounter, Closeable abort) {
+    super(in);
+    this.maxBytes = maxBytes;
+    this.exceededCounter = exceededCounter;
+    this.abort = abort;
+  }
+
+  /**
+   * @return true when the body has been stopped because it exceeded its maximum size
+   */
+  public boolean isExceeded() {
+    return exceeded;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int b = super.read();
+    count(b < 0 ? -1 : 1);
+    return b;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    int n = super.read(b, off, len);
+    count(n);
+    return n;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    long skipped = super.skip(n);
+    count(skipped);
+    return skipped;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (ended || abort == null) {
+      super.close();
+    } else {
+      abort.close();
+    }
+  }
+
+  private void count(long n) throws IOException {
+    if (n < 0) {
+      ended = true;
+      return;
+    }
+    count += n;
+    if (maxBytes > 0 && count > maxBytes) {
+      if (!exceeded) {
+        exceeded = true;
+        exceededCounter.increment();
+      }
+      throw new IOException("Body larger than " + maxBytes + " bytes");
+    }
+  }
+}
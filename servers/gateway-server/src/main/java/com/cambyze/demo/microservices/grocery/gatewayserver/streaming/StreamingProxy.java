@@ -0,0 +1,138 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.streaming;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.PreDestroy;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import com.cambyze.demo.microservices.grocery.gatewayserver.configuration.StreamingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Calls to the backends of the streamed routes
+ * <p>
+ * The bodies are copied between the client and the backend with the fixed size buffers of the
+ * HTTP client and of SendResponseFilter (zuul.initial-stream-buffer-size). The I/O being blocking,
+ * a slow reader stops the copy and TCP slows down the writer, so the memory used by a request does
+ * not depend on the size of its bodies. The bodies are not decompressed and the requests are not
+ * retried. Metrics published: gateway.streaming.rejected with the tag reason request-too-large or
+ * response-too-large
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class StreamingProxy {
+
+  // Headers set by the HTTP client itself
+  private static final Set<String> CLIENT_HEADERS =
+      Set.of("content-length", "transfer-encoding", "host", "connection");
+
+  private final StreamingProperties properties;
+  private final CloseableHttpClient httpClient;
+  private final Counter requestTooLarge;
+  private final Counter responseTooLarge;
+
+  public StreamingProxy(StreamingProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    RequestConfig requestConfig =
+        RequestConfig.custom().setConnectTimeout(properties.getConnectTimeoutMillis())
+            .setSocketTimeout(properties.getReadTimeoutMillis()).setRedirectsEnabled(false).build();
+    this.httpClient = HttpClients.custom().setDefaultRequestConfig(requestConfig)
+        .setMaxConnTotal(properties.getMaxConnections())
+        .setMaxConnPerRoute(properties.getMaxConnectionsPerInstance())
+        .disableContentCompression().disableCookieManagement().disableRedirectHandling()
+        .disableAutomaticRetries().build();
+    this.requestTooLarge = Counter.builder("gateway.streaming.rejected")
+        .tag("reason", "request-too-large").register(meterRegistry);
+    this.responseTooLarge = Counter.builder("gateway.streaming.rejected")
+        .tag("reason", "response-too-large").register(meterRegistry);
+  }
+
+  /**
+   * Check the announced size of a request body, -1 when unknown
+   * 
+   * @return true when the request must be rejected without calling the backend
+   */
+  public boolean isRequestTooLarge(long contentLength) {
+    return exceeds(contentLength, properties.getMaxRequestBytes(), requestTooLarge);
+  }
+
+  /**
+   * Check the announced size of a response body, -1 when unknown
+   * 
+   * @return true when the response must not be sent to the client
+   */
+  public boolean isResponseTooLarge(long contentLength) {
+    return exceeds(contentLength, properties.getMaxResponseBytes(), responseTooLarge);
+  }
+
+  /**
+   * Limit the request body read from the client to its maximum size
+   */
+  public BoundedInputStream boundRequest(InputStream body) {
+    return new BoundedInputStream(body, properties.getMaxRequestBytes(), requestTooLarge, null);
+  }
+
+  /**
+   * Limit the response body of the backend to its maximum size. When it is not read to the end,
+   * the connection to the backend is closed
+   */
+  public BoundedInputStream boundResponse(CloseableHttpResponse response) throws IOException {
+    return new BoundedInputStream(response.getEntity().getContent(),
+        properties.getMaxResponseBytes(), responseTooLarge, response);
+  }
+
+  /**
+   * Send a request to a backend, its body is streamed while it is sent
+   * 
+   * @param method the HTTP method
+   * @param uri the URI of the backend instance
+   * @param headers the headers to send
+   * @param body the request body, null when there is none
+   * @param contentLength the size of the body, -1 to send it in chunks
+   * @return the response, its body is read as a stream and must be closed
+   * @throws IOException when the backend cannot be called or the body cannot be sent
+   */
+  public CloseableHttpResponse execute(String method, URI uri,
+      MultiValueMap<String, String> headers, InputStream body, long contentLength)
+      throws IOException {
+    RequestBuilder request = RequestBuilder.create(method).setUri(uri);
+    for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+      if (!CLIENT_HEADERS.contains(header.getKey().toLowerCase())) {
+        for (String value : header.getValue()) {
+          request.addHeader(header.getKey(), value);
+        }
+      }
+    }
+    if (body != null) {
+      request.setEntity(new InputStreamEntity(body, contentLength));
+    }
+    return httpClient.execute(request.build());
+  }
+
+  @PreDestroy
+  public void stop() throws IOException {
+    httpClient.close();
+  }
+
+  private boolean exceeds(long contentLength, long maxBytes, Counter counter) {
+    if (maxBytes > 0 && contentLength > maxBytes) {
+      counter.increment();
+      return true;
+    }
+    return false;
+  }
+
+}
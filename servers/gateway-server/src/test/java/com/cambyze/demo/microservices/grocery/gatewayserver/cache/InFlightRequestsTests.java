@@ -0,0 +1,94 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * 
+ * Class to test that a herd of identical concurrent requests calls the backend only once, and
+ * that a leader no more awaited does not release the requests of the next leader
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+class InFlightRequestsTests {
+
+  private static final String KEY = "demo-products /demo-products/products|application/json";
+  private static final int REQUESTS = 200;
+
+  @Test
+  void thunderingHerdCallsBackendOnce() throws Exception {
+    InFlightRequests inFlightRequests = new InFlightRequests(new SimpleMeterRegistry());
+    AtomicInteger backendCalls = new AtomicInteger();
+    CountDownLatch followersJoined = new CountDownLatch(REQUESTS - 1);
+    CachedResponse backendResponse =
+        new CachedResponse(200, new ArrayList<>(), "[]".getBytes(), false, 0);
+
+    ExecutorService executor = Executors.newFixedThreadPool(REQUESTS);
+    List<Callable<CachedResponse>> requests = new ArrayList<Callable<CachedResponse>>();
+    for (int i = 0; i < REQUESTS; i++) {
+      requests.add(() -> {
+        CompletableFuture<CachedResponse> ownResponse = new CompletableFuture<CachedResponse>();
+        CompletableFuture<CachedResponse> leaderResponse = inFlightRequests.join(KEY, ownResponse);
+        if (leaderResponse == null) {
+          // Slow backend call while the herd arrives
+          backendCalls.incrementAndGet();
+          followersJoined.await(5, TimeUnit.SECONDS);
+          inFlightRequests.complete(KEY, ownResponse, backendResponse);
+          return backendResponse;
+        } else {
+          followersJoined.countDown();
+          return inFlightRequests.await(KEY, leaderResponse, 5000);
+        }
+      });
+    }
+    int served = 0;
+    try {
+      for (Future<CachedResponse> response : executor.invokeAll(requests)) {
+        if (response.get() == backendResponse) {
+          served++;
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals(1, backendCalls.get());
+    assertEquals(REQUESTS, served);
+  }
+
+  @Test
+  void slowLeaderDoesNotCompleteItsSuccessor() {
+    InFlightRequests inFlightRequests = new InFlightRequests(new SimpleMeterRegistry());
+    CachedResponse staleResponse =
+        new CachedResponse(200, new ArrayList<>(), "[1]".getBytes(), false, 0);
+
+    CompletableFuture<CachedResponse> slowLeader = new CompletableFuture<CachedResponse>();
+    assertNull(inFlightRequests.join(KEY, slowLeader));
+    // The follower gives up the slow leader, which is no more awaited
+    CompletableFuture<CachedResponse> follower = new CompletableFuture<CachedResponse>();
+    assertNull(inFlightRequests.await(KEY, inFlightRequests.join(KEY, follower), 1));
+
+    CompletableFuture<CachedResponse> newLeader = new CompletableFuture<CachedResponse>();
+    assertNull(inFlightRequests.join(KEY, newLeader));
+    inFlightRequests.complete(KEY, slowLeader, staleResponse);
+
+    assertFalse(newLeader.isDone());
+    assertSame(newLeader, inFlightRequests.join(KEY, new CompletableFuture<CachedResponse>()));
+  }
+
+}
@@ -0,0 +1,79 @@
+package com.cambyze.demo.microservices.grocery.gatewayserver.security;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import com.cambyze.demo.microservices.grocery.gatewaycommons.CredentialsCacheProperties;
+import com.cambyze.demo.microservices.grocery.gatewaycommons.VerifiedCredentialsCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * 
+ * Class to test that the verified credentials are reused from the cache without calling the
+ * password verification again, and that wrong credentials are always verified
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+class CachingAuthenticationProviderTests {
+
+  private static final String USERNAME = "test-user";
+  private static final String PASSWORD = "test-password";
+  private static final String WRONG_PASSWORD = "wrong-password";
+  private static final int REQUESTS = 100;
+
+  private AuthenticationProvider passwordProvider;
+  private AuthenticationProvider cachingProvider;
+
+  @BeforeEach
+  void createProviders() {
+    passwordProvider = mock(AuthenticationProvider.class);
+    when(passwordProvider.supports(any())).thenReturn(true);
+    when(passwordProvider.authenticate(any())).thenAnswer(invocation -> {
+      Authentication authentication = invocation.getArgument(0);
+      if (!PASSWORD.equals(authentication.getCredentials())) {
+        throw new BadCredentialsException("Bad credentials");
+      }
+      return new UsernamePasswordAuthenticationToken(USERNAME, PASSWORD,
+          List.of(new SimpleGrantedAuthority("ROLE_API")));
+    });
+    cachingProvider = new CachingAuthenticationProvider(passwordProvider,
+        new VerifiedCredentialsCache(new CredentialsCacheProperties(), new SimpleMeterRegistry()));
+  }
+
+  @Test
+  void verifiedCredentialsReusedFromCache() {
+    Authentication first = cachingProvider.authenticate(createToken(PASSWORD));
+    for (int i = 0; i < REQUESTS; i++) {
+      assertSame(first, cachingProvider.authenticate(createToken(PASSWORD)));
+    }
+    // The password is verified once by the delegate
+    verify(passwordProvider, times(1)).authenticate(any());
+  }
+
+  @Test
+  void wrongCredentialsAlwaysVerified() {
+    cachingProvider.authenticate(createToken(PASSWORD));
+    for (int i = 0; i < 2; i++) {
+      assertThrows(BadCredentialsException.class,
+          () -> cachingProvider.authenticate(createToken(WRONG_PASSWORD)));
+    }
+    verify(passwordProvider, times(3)).authenticate(any());
+  }
+
+  private UsernamePasswordAuthenticationToken createToken(String password) {
+    return new UsernamePasswordAuthenticationToken(USERNAME, password);
+  }
+}
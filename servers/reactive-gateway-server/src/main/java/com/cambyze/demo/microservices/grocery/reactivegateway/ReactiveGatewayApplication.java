@@ -0,0 +1,21 @@
+package com.cambyze.demo.microservices.grocery.reactivegateway;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+
+/**
+ * Non-blocking API Gateway server
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@SpringBootApplication
+@EnableDiscoveryClient
+public class ReactiveGatewayApplication {
+
+  public static void main(String[] args) {
+    SpringApplication.run(ReactiveGatewayApplication.class, args);
+  }
+
+}
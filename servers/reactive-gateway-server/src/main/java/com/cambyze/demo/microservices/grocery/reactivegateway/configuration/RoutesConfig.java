@@ -0,0 +1,33 @@
+package com.cambyze.demo.microservices.grocery.reactivegateway.configuration;
+
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Routes of the microservices, the same as the Zuul gateway: /service-id/** is sent to the path **
+ * of an instance of the service found in Eureka
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Configuration
+public class RoutesConfig {
+
+  public static final String PRODUCTS_ROUTE = "demo-products";
+  public static final String ORDERS_ROUTE = "demo-orders";
+  public static final String PAYMENTS_ROUTE = "demo-payments";
+
+  @Bean
+  public RouteLocator microservicesRoutes(RouteLocatorBuilder builder) {
+    return builder.routes()
+        .route(PRODUCTS_ROUTE, r -> r.path("/" + PRODUCTS_ROUTE + "/**")
+            .filters(f -> f.stripPrefix(1)).uri("lb://" + PRODUCTS_ROUTE))
+        .route(ORDERS_ROUTE, r -> r.path("/" + ORDERS_ROUTE + "/**")
+            .filters(f -> f.stripPrefix(1)).uri("lb://" + ORDERS_ROUTE))
+        .route(PAYMENTS_ROUTE, r -> r.path("/" + PAYMENTS_ROUTE + "/**")
+            .filters(f -> f.stripPrefix(1)).uri("lb://" + PAYMENTS_ROUTE))
+        .build();
+  }
+}
@@ -0,0 +1,17 @@
+package com.cambyze.demo.microservices.grocery.reactivegateway.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import com.cambyze.demo.microservices.grocery.tracing.AdaptiveSamplingConfiguration;
+
+/**
+ * Sampling of the traces sent to tools as Zipkin, configured by the properties
+ * cambyze.tracing.sampling.*
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Configuration
+@Import(AdaptiveSamplingConfiguration.class)
+public class SleuthConfig {
+}
@@ -0,0 +1,70 @@
+package com.cambyze.demo.microservices.grocery.reactivegateway.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import com.cambyze.demo.microservices.grocery.gatewaycommons.CredentialsCacheConfiguration;
+import com.cambyze.demo.microservices.grocery.gatewaycommons.CredentialsCacheEndpoint;
+import com.cambyze.demo.microservices.grocery.gatewaycommons.CredentialsCacheProperties;
+import com.cambyze.demo.microservices.grocery.gatewaycommons.VerifiedCredentialsCache;
+import com.cambyze.demo.microservices.grocery.reactivegateway.security.CachingReactiveAuthenticationManager;
+
+/**
+ * Security of the gateway, the same as the Zuul gateway
+ * <ul>
+ * <li>HTTP Basic credentials verified by the password encoder, then kept in the cache of the
+ * verified credentials (property cambyze.gateway.credentials-cache.enabled)</li>
+ * <li>removal of the verified credentials (DELETE /actuator/credentialscache) restricted to the
+ * users of the role cambyze.gateway.credentials-cache.admin-role</li>
+ * <li>to allow to disable CSRF during development phase by setting the property
+ * cambyze.security.csrf=false</li>
+ * </ul>
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Configuration
+@EnableWebFluxSecurity
+@Import(CredentialsCacheConfiguration.class)
+public class SpringBootSecurityConfiguration {
+
+  @Value("${cambyze.security.csrf}")
+  private boolean csrfEnabled = true;
+
+  @Bean
+  public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,
+      ReactiveUserDetailsService userDetailsService,
+      VerifiedCredentialsCache verifiedCredentialsCache,
+      CredentialsCacheProperties credentialsCacheProperties) {
+
+    if (!csrfEnabled) {
+      http.csrf().disable();
+    }
+
+    // Not a bean, so that the users of the configuration are still created by Spring Boot
+    UserDetailsRepositoryReactiveAuthenticationManager passwordManager =
+        new UserDetailsRepositoryReactiveAuthenticationManager(userDetailsService);
+    passwordManager.setPasswordEncoder(PasswordEncoderFactories.createDelegatingPasswordEncoder());
+    ReactiveAuthenticationManager authenticationManager = passwordManager;
+    if (credentialsCacheProperties.isEnabled()) {
+      authenticationManager =
+          new CachingReactiveAuthenticationManager(passwordManager, verifiedCredentialsCache);
+    }
+
+    http.httpBasic().authenticationManager(authenticationManager);
+    http.authorizeExchange()
+        .pathMatchers(HttpMethod.DELETE, CredentialsCacheEndpoint.PATH,
+            CredentialsCacheEndpoint.PATH + "/**")
+        .hasRole(credentialsCacheProperties.getAdminRole()).anyExchange().permitAll();
+    return http.build();
+  }
+}
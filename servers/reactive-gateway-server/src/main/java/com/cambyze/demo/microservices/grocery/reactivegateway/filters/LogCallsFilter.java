@@ -0,0 +1,65 @@
+package com.cambyze.demo.microservices.grocery.reactivegateway.filters;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+import static com.cambyze.demo.microservices.grocery.gatewaycommons.JsonLines.appendString;
+import java.time.Instant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Filter to log any received request in the access log, with its route and its status, in JSON
+ * lines as the Zuul gateway
+ * <p>
+ * The logger ACCESS_LOG is written by an asynchronous appender (logback-spring.xml) so that the
+ * event loop threads never wait for the file
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class LogCallsFilter implements GlobalFilter, Ordered {
+
+  private static final Logger ACCESS_LOGGER = LoggerFactory.getLogger("ACCESS_LOG");
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+    return chain.filter(exchange).doFinally(signal -> log(exchange));
+  }
+
+  private void log(ServerWebExchange exchange) {
+    if (!ACCESS_LOGGER.isInfoEnabled()) {
+      return;
+    }
+    ServerHttpRequest request = exchange.getRequest();
+    Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+    HttpStatus status = exchange.getResponse().getStatusCode();
+    StringBuilder line = new StringBuilder(256);
+    line.append("{\"timestamp\":\"").append(Instant.now()).append("\",\"method\":");
+    appendString(line, request.getMethodValue());
+    line.append(",\"uri\":");
+    appendString(line, request.getURI().getRawPath());
+    line.append(",\"route\":");
+    appendString(line, route == null ? null : route.getId());
+    line.append(",\"status\":").append(status == null ? 0 : status.value()).append(",\"host\":");
+    appendString(line, request.getHeaders().getFirst(HttpHeaders.HOST));
+    line.append(",\"userAgent\":");
+    appendString(line, request.getHeaders().getFirst(HttpHeaders.USER_AGENT));
+    line.append('}');
+    ACCESS_LOGGER.info(line.toString());
+  }
+
+  @Override
+  public int getOrder() {
+    return Ordered.HIGHEST_PRECEDENCE;
+  }
+}
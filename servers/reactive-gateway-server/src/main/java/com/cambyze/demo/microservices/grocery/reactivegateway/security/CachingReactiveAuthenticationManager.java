@@ -0,0 +1,46 @@
+package com.cambyze.demo.microservices.grocery.reactivegateway.security;
+
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.core.Authentication;
+import com.cambyze.demo.microservices.grocery.gatewaycommons.VerifiedCredentialsCache;
+import reactor.core.publisher.Mono;
+
+/**
+ * Authentication manager which verifies the credentials of a user once and then reuses the result
+ * during the time to live of the cache
+ * <p>
+ * Only the successful verifications are cached, wrong credentials are always verified by the
+ * delegate
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+public class CachingReactiveAuthenticationManager implements ReactiveAuthenticationManager {
+
+  private final ReactiveAuthenticationManager delegate;
+  private final VerifiedCredentialsCache cache;
+
+  public CachingReactiveAuthenticationManager(ReactiveAuthenticationManager delegate,
+      VerifiedCredentialsCache cache) {
+    this.delegate = delegate;
+    this.cache = cache;
+  }
+
+  @Override
+  public Mono<Authentication> authenticate(Authentication authentication) {
+    Object credentials = authentication.getCredentials();
+    if (authentication.getName() == null || credentials == null) {
+      return delegate.authenticate(authentication);
+    }
+    String key = cache.getKey(authentication.getName(), credentials.toString());
+    Authentication result = cache.get(key);
+    if (result != null) {
+      return Mono.just(result);
+    }
+    return delegate.authenticate(authentication).doOnNext(verified -> {
+      if (verified.isAuthenticated()) {
+        cache.put(key, verified);
+      }
+    });
+  }
+}
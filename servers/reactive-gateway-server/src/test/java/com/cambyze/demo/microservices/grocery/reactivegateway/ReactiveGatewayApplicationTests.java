@@ -0,0 +1,13 @@
+package com.cambyze.demo.microservices.grocery.reactivegateway;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class ReactiveGatewayApplicationTests {
+
+	@Test
+	void contextLoads() {
+	}
+
+}
@@ -0,0 +1,125 @@
+package com.cambyze.demo.microservices.grocery.reactivegateway.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load benchmark comparing gateways at high concurrency, not executed by the build
+ * <p>
+ * Each gateway is loaded in turn with the same number of requests in progress during the same
+ * time. The benchmark reports the throughput, the latency and the live threads of the gateway (read
+ * from its actuator metric jvm.threads.live, which must be exposed).
+ * <p>
+ * Arguments: gateway URLs separated by commas, path of the requests, requests in progress,
+ * duration in seconds, for instance
+ * <code>http://zuul-host:port,http://reactive-host:port /demo-products/products 1000 30</code>
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+public class GatewayLoadBenchmark {
+
+  private static final Pattern METRIC_VALUE = Pattern.compile("\"value\"\\s*:\\s*([0-9.]+)");
+
+  private final HttpClient client;
+  private final String path;
+  private final int concurrency;
+  private final long durationSeconds;
+
+  public GatewayLoadBenchmark(String path, int concurrency, long durationSeconds) {
+    this.client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    this.path = path;
+    this.concurrency = concurrency;
+    this.durationSeconds = durationSeconds;
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length < 4) {
+      System.out.println("Arguments: gateway-urls (comma separated) path concurrency seconds");
+      return;
+    }
+    GatewayLoadBenchmark benchmark = new GatewayLoadBenchmark(args[1],
+        Integer.parseInt(args[2]), Long.parseLong(args[3]));
+    System.out.println("gateway | requests/s | mean latency ms | errors | threads before/peak");
+    for (String gateway : Arrays.asList(args[0].split(","))) {
+      benchmark.run(gateway.trim());
+    }
+  }
+
+  private void run(String gateway) throws Exception {
+    // Warm-up with a tenth of the duration
+    load(gateway, Math.max(1, durationSeconds / 10), null);
+    int threadsBefore = readLiveThreads(gateway);
+    AtomicInteger peakThreads = new AtomicInteger(threadsBefore);
+    Result result = load(gateway, durationSeconds, peakThreads);
+    System.out.println(gateway + " | " + result.count.get() / durationSeconds + " | "
+        + (result.count.get() == 0 ? 0
+            : TimeUnit.NANOSECONDS.toMillis(result.totalNanos.get() / result.count.get()))
+        + " | " + result.errors + " | " + threadsBefore + "/" + peakThreads.get());
+  }
+
+  private Result load(String gateway, long seconds, AtomicInteger peakThreads)
+      throws InterruptedException {
+    Result result = new Result();
+    Semaphore inProgress = new Semaphore(concurrency);
+    HttpRequest request = HttpRequest.newBuilder(URI.create(gateway + path))
+        .timeout(Duration.ofSeconds(30)).GET().build();
+    long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+    long nextThreadsRead = System.nanoTime();
+    while (System.nanoTime() < end) {
+      if (!inProgress.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+        continue;
+      }
+      long start = System.nanoTime();
+      client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+          .whenComplete((response, error) -> {
+            inProgress.release();
+            if (error != null || response.statusCode() >= 500) {
+              result.errors.incrementAndGet();
+            } else {
+              result.count.incrementAndGet();
+              result.totalNanos.addAndGet(System.nanoTime() - start);
+            }
+          });
+      if (peakThreads != null && System.nanoTime() >= nextThreadsRead) {
+        peakThreads.accumulateAndGet(readLiveThreads(gateway), Math::max);
+        nextThreadsRead = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+      }
+    }
+    // Wait for the requests still in progress
+    inProgress.acquire(concurrency);
+    return result;
+  }
+
+  private int readLiveThreads(String gateway) {
+    try {
+      HttpResponse<String> response = client.send(
+          HttpRequest.newBuilder(URI.create(gateway + "/actuator/metrics/jvm.threads.live"))
+              .timeout(Duration.ofSeconds(5)).GET().build(),
+          HttpResponse.BodyHandlers.ofString());
+      Matcher matcher = METRIC_VALUE.matcher(response.body());
+      return matcher.find() ? (int) Double.parseDouble(matcher.group(1)) : -1;
+    } catch (Exception e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Counters of a load
+   */
+  private static class Result {
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicInteger errors = new AtomicInteger();
+  }
+}
@@ -0,0 +1,77 @@
+package com.cambyze.demo.microservices.grocery.orders.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 
+ * Declaration of configuration properties
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+@ConfigurationProperties(prefix = "cambyze.demo.grocery")
+public class ApplicationPropertiesConfigurator {
+
+  private boolean orderIntakeAsync = false;
+
+  private int orderIntakeQueueCapacity = 10000;
+
+  private int orderIntakeWorkers = 2;
+
+  private int orderIntakeBatchSize = 100;
+
+  private long orderIntakeStatusMaxSize = 100000;
+
+  private long orderIntakeStatusTtlSeconds = 600;
+
+  public boolean isOrderIntakeAsync() {
+    return orderIntakeAsync;
+  }
+
+  public void setOrderIntakeAsync(boolean orderIntakeAsync) {
+    this.orderIntakeAsync = orderIntakeAsync;
+  }
+
+  public int getOrderIntakeQueueCapacity() {
+    return orderIntakeQueueCapacity;
+  }
+
+  public void setOrderIntakeQueueCapacity(int orderIntakeQueueCapacity) {
+    this.orderIntakeQueueCapacity = orderIntakeQueueCapacity;
+  }
+
+  public int getOrderIntakeWorkers() {
+    return orderIntakeWorkers;
+  }
+
+  public void setOrderIntakeWorkers(int orderIntakeWorkers) {
+    this.orderIntakeWorkers = orderIntakeWorkers;
+  }
+
+  public int getOrderIntakeBatchSize() {
+    return orderIntakeBatchSize;
+  }
+
+  public void setOrderIntakeBatchSize(int orderIntakeBatchSize) {
+    this.orderIntakeBatchSize = orderIntakeBatchSize;
+  }
+
+  public long getOrderIntakeStatusMaxSize() {
+    return orderIntakeStatusMaxSize;
+  }
+
+  public void setOrderIntakeStatusMaxSize(long orderIntakeStatusMaxSize) {
+    this.orderIntakeStatusMaxSize = orderIntakeStatusMaxSize;
+  }
+
+  public long getOrderIntakeStatusTtlSeconds() {
+    return orderIntakeStatusTtlSeconds;
+  }
+
+  public void setOrderIntakeStatusTtlSeconds(long orderIntakeStatusTtlSeconds) {
+    this.orderIntakeStatusTtlSeconds = orderIntakeStatusTtlSeconds;
+  }
+
+}
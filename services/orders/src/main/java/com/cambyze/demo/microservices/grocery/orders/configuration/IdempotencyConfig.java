@@ -0,0 +1,17 @@
+package com.cambyze.demo.microservices.grocery.orders.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import com.cambyze.demo.microservices.grocery.idempotency.IdempotencyConfiguration;
+
+/**
+ * Execution once of the creations sent with an Idempotency-Key header, configured by the
+ * properties cambyze.demo.grocery.idempotency-*
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Configuration
+@Import(IdempotencyConfiguration.class)
+public class IdempotencyConfig {
+}
@@ -1,6 +1,8 @@
 package com.cambyze.demo.microservices.grocery.orders.dao;
 
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -36,15 +38,23 @@ public interface PurchaseOrderDao extends PersistEntityDao<PurchaseOrder> {
   List<PurchaseOrder> findByPaid(Boolean paid);
 
   /**
-   * Find purchase id according to parameters
+   * Find purchase orders according to parameters (using the index on product reference and paid)
    * 
    * @param productReference reference of the product
    * @param paid indicates if the order is paid or not
-   * @return list of purchase order id
+   * @param pageable page and sort of the orders
+   * @return list of purchase orders
+   */
+  List<PurchaseOrder> findByProductReferenceAndPaid(String productReference, Boolean paid,
+      Pageable pageable);
+
+  /**
+   * Find which references of a list are already used by orders, in one query
+   * 
+   * @param references references of orders formatted in upper case
+   * @return list of the existing references
    */
-  @Query("SELECT id FROM PurchaseOrder "
-      + "WHERE productReference = :productReference AND paid= :paid")
-  List<Long> findByProductReferenceAndPaid(@Param("productReference") String productReference,
-      @Param("paid") Boolean paid);
+  @Query("SELECT reference FROM PurchaseOrder WHERE reference IN :references")
+  List<String> findExistingReferences(@Param("references") Collection<String> references);
 
 }
@@ -0,0 +1,277 @@
+package com.cambyze.demo.microservices.grocery.orders.intake;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.cambyze.demo.microservices.grocery.orders.configuration.ApplicationPropertiesConfigurator;
+import com.cambyze.demo.microservices.grocery.orders.dao.PurchaseOrderDao;
+import com.cambyze.demo.microservices.grocery.orders.model.PurchaseOrder;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Asynchronous intake of the orders: the request threads only queue the validated orders, worker
+ * threads insert them by batches
+ * <p>
+ * The queue is bounded (cambyze.demo.grocery.order-intake-queue-capacity) so that an order which
+ * cannot be queued is refused at once instead of waiting. An order submitted in a transaction (an
+ * Idempotency-Key) holds its place in the queue but is queued only after the commit, and released
+ * if the transaction rolls back. Each worker takes up to order-intake-batch-size orders, searches
+ * their existing references with one query and inserts the new ones with JDBC batching (see
+ * JpaConfig). The status of each order is kept in memory for its status URL. Metrics published:
+ * orders.intake.queue.depth, orders.intake.submitted with the tag result accepted or queue-full,
+ * orders.intake.drained with the tag result created or rejected (drain rate) and
+ * orders.intake.batch (duration of the insertion of a batch)
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class OrderIntake implements Runnable {
+
+  /**
+   * Result of the submission of an order
+   */
+  public enum Submission {
+    ACCEPTED, DUPLICATE, QUEUE_FULL
+  }
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OrderIntake.class);
+  private static final String ALREADY_EXISTS = "The purchase order already exists";
+  private static final long POLL_MILLIS = 100;
+  private static final long STOP_TIMEOUT_SECONDS = 10;
+
+  private final PurchaseOrderDao orderDao;
+  private final int batchSize;
+  private final int workerCount;
+  private final BlockingQueue<PurchaseOrder> queue;
+  // Places of the queue not yet taken by an order queued or waiting for its commit
+  private final Semaphore freePlaces;
+  private final ConcurrentMap<String, OrderIntakeStatus> statuses;
+  private final Counter accepted;
+  private final Counter queueFull;
+  private final Counter created;
+  private final Counter rejected;
+  private final Timer batchTimer;
+  private final List<Thread> workers = new ArrayList<Thread>();
+  private volatile boolean running;
+
+  public OrderIntake(ApplicationPropertiesConfigurator appProperties, PurchaseOrderDao orderDao,
+      MeterRegistry meterRegistry) {
+    this.orderDao = orderDao;
+    this.batchSize = Math.max(appProperties.getOrderIntakeBatchSize(), 1);
+    this.workerCount = Math.max(appProperties.getOrderIntakeWorkers(), 1);
+    this.queue = new ArrayBlockingQueue<PurchaseOrder>(appProperties.getOrderIntakeQueueCapacity());
+    this.freePlaces = new Semaphore(appProperties.getOrderIntakeQueueCapacity());
+    this.statuses = Caffeine.newBuilder()
+        .maximumSize(appProperties.getOrderIntakeStatusMaxSize())
+        .expireAfterWrite(appProperties.getOrderIntakeStatusTtlSeconds(), TimeUnit.SECONDS)
+        .<String, OrderIntakeStatus>build().asMap();
+    Gauge.builder("orders.intake.queue.depth", queue, BlockingQueue::size)
+        .register(meterRegistry);
+    this.accepted = Counter.builder("orders.intake.submitted").tag("result", "accepted")
+        .register(meterRegistry);
+    this.queueFull = Counter.builder("orders.intake.submitted").tag("result", "queue-full")
+        .register(meterRegistry);
+    this.created = Counter.builder("orders.intake.drained").tag("result", "created")
+        .register(meterRegistry);
+    this.rejected = Counter.builder("orders.intake.drained").tag("result", "rejected")
+        .register(meterRegistry);
+    this.batchTimer = Timer.builder("orders.intake.batch").register(meterRegistry);
+  }
+
+  /**
+   * Queue a validated order for its insertion, called by the request threads
+   * <p>
+   * In a transaction, the order is queued after the commit so that an order is never inserted for
+   * a request rolled back
+   * 
+   * @param order the order, its reference is formatted in upper case
+   * @return ACCEPTED when queued, DUPLICATE when an order with the same reference is queued or
+   *         created, QUEUE_FULL when the queue is full
+   */
+  public Submission submit(PurchaseOrder order) {
+    String reference = order.getReference().toUpperCase().trim();
+    order.setReference(reference);
+    OrderIntakeStatus pending = new OrderIntakeStatus(reference, OrderIntakeStatus.State.PENDING,
+        null);
+    OrderIntakeStatus current = statuses.compute(reference,
+        (key, status) -> status == null || status.getState() == OrderIntakeStatus.State.REJECTED
+            ? pending
+            : status);
+    if (current != pending) {
+      return Submission.DUPLICATE;
+    }
+    if (!freePlaces.tryAcquire()) {
+      statuses.remove(reference, pending);
+      queueFull.increment();
+      return Submission.QUEUE_FULL;
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+              if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                enqueue(order);
+              } else {
+                statuses.remove(reference, pending);
+                freePlaces.release();
+              }
+            }
+          });
+    } else {
+      enqueue(order);
+    }
+    return Submission.ACCEPTED;
+  }
+
+  /*
+   * Queue an order with a place already taken in the queue
+   */
+  private void enqueue(PurchaseOrder order) {
+    queue.add(order);
+    accepted.increment();
+  }
+
+  /**
+   * Status of an order received by the intake
+   * 
+   * @param reference reference of the order formatted in upper case
+   * @return the status or null when unknown or expired
+   */
+  public OrderIntakeStatus getStatus(String reference) {
+    return statuses.get(reference);
+  }
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    for (int i = 0; i < workerCount; i++) {
+      Thread worker = new Thread(this, "order-intake-" + i);
+      worker.setDaemon(true);
+      worker.start();
+      workers.add(worker);
+    }
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(STOP_TIMEOUT_SECONDS);
+    for (Thread worker : workers) {
+      worker.join(Math.max(TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()), 1));
+    }
+    workers.clear();
+    if (!queue.isEmpty()) {
+      LOGGER.warn("Order intake stopped with orders not inserted = " + queue.size());
+    }
+  }
+
+  @Override
+  public void run() {
+    List<PurchaseOrder> batch = new ArrayList<PurchaseOrder>(batchSize);
+    // The queued orders are inserted before stopping
+    while (running || !queue.isEmpty()) {
+      try {
+        PurchaseOrder order = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (order != null) {
+          batch.add(order);
+          queue.drainTo(batch, batchSize - 1);
+          freePlaces.release(batch.size());
+          insertBatch(batch);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        LOGGER.error("Orders not inserted: " + e.getMessage());
+        // The orders already created or rejected by the insertion keep their status
+        for (PurchaseOrder order : batch) {
+          OrderIntakeStatus status = statuses.get(order.getReference());
+          if (status == null || status.getState() == OrderIntakeStatus.State.PENDING) {
+            reject(order, "The purchase order has not been inserted");
+          }
+        }
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  /*
+   * Reject the orders already created then insert the new orders in one batch
+   */
+  private void insertBatch(List<PurchaseOrder> batch) {
+    long start = System.nanoTime();
+    Set<String> references = new HashSet<String>(batch.size() * 2);
+    for (PurchaseOrder order : batch) {
+      references.add(order.getReference());
+    }
+    Set<String> existingReferences =
+        new HashSet<String>(orderDao.findExistingReferences(references));
+
+    List<PurchaseOrder> newOrders = new ArrayList<PurchaseOrder>(batch.size());
+    for (PurchaseOrder order : batch) {
+      if (existingReferences.contains(order.getReference())) {
+        reject(order, ALREADY_EXISTS);
+      } else {
+        newOrders.add(order);
+      }
+    }
+
+    try {
+      orderDao.saveAll(newOrders);
+      for (PurchaseOrder order : newOrders) {
+        created(order);
+      }
+    } catch (DataIntegrityViolationException e) {
+      // An order created meanwhile by a synchronous creation: the orders are inserted one by one
+      LOGGER.warn("Order intake: batch rejected, orders inserted one by one");
+      for (PurchaseOrder order : newOrders) {
+        insertOrder(order);
+      }
+    }
+    batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+  }
+
+  private void insertOrder(PurchaseOrder order) {
+    order.setId(0);
+    try {
+      orderDao.save(order);
+      created(order);
+    } catch (DataIntegrityViolationException e) {
+      reject(order, ALREADY_EXISTS);
+    }
+  }
+
+  private void created(PurchaseOrder order) {
+    statuses.put(order.getReference(), new OrderIntakeStatus(order.getReference(),
+        OrderIntakeStatus.State.CREATED, null));
+    created.increment();
+  }
+
+  private void reject(PurchaseOrder order, String message) {
+    statuses.put(order.getReference(), new OrderIntakeStatus(order.getReference(),
+        OrderIntakeStatus.State.REJECTED, message));
+    rejected.increment();
+  }
+}
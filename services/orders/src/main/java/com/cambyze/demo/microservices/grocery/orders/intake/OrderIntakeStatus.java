@@ -0,0 +1,51 @@
+package com.cambyze.demo.microservices.grocery.orders.intake;
+
+/**
+ * Status of an order received by the asynchronous intake, returned by its status URL
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+public class OrderIntakeStatus {
+
+  /**
+   * Steps of an order in the intake
+   */
+  public enum State {
+    // Waiting in the queue for its insertion
+    PENDING,
+    // Inserted, available with the URL of the order
+    CREATED,
+    // Not inserted, see the message
+    REJECTED
+  }
+
+  private final String reference;
+  private final State state;
+  private final String message;
+
+  public OrderIntakeStatus(String reference, State state, String message) {
+    this.reference = reference;
+    this.state = state;
+    this.message = message;
+  }
+
+  public String getReference() {
+    return reference;
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  @Override
+  public String toString() {
+    return "OrderIntakeStatus{reference=" + reference + ", state=" + state + ", message=" + message
+        + "}";
+  }
+
+}
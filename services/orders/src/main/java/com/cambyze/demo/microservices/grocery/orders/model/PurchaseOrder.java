@@ -28,14 +28,14 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @Entity
 @Table(
     indexes = {@Index(columnList = "reference", name = "indPurchaseOrderReference", unique = true),
-        @Index(columnList = "productReference", name = "indPurchaseOrderProductReference",
+        @Index(columnList = "productReference, paid", name = "indPurchaseOrderProductReferencePaid",
             unique = false)})
 public class PurchaseOrder extends PersistEntity {
 
   private static final String ENTITY_NAME = "purchase order";
 
   @Id
-  @SequenceGenerator(name = "purchaseOrderSequence", initialValue = 1, allocationSize = 10)
+  @SequenceGenerator(name = "purchaseOrderSequence", initialValue = 1, allocationSize = 100)
   @GeneratedValue(generator = "purchaseOrderSequence")
   @JsonIgnore
   private long id;
@@ -1,13 +1,16 @@
 package com.cambyze.demo.microservices.grocery.orders.web.controller;
 
 import java.net.URI;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import javax.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,11 +19,17 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import com.cambyze.commons.microservices.web.controller.MicroserviceControllerService;
 import com.cambyze.commons.microservices.web.exceptions.RecordNotFoundException;
+import com.cambyze.demo.microservices.grocery.idempotency.IdempotencyStore;
+import com.cambyze.demo.microservices.grocery.orders.configuration.ApplicationPropertiesConfigurator;
 import com.cambyze.demo.microservices.grocery.orders.dao.PurchaseOrderDao;
+import com.cambyze.demo.microservices.grocery.orders.intake.OrderIntake;
+import com.cambyze.demo.microservices.grocery.orders.intake.OrderIntakeStatus;
 import com.cambyze.demo.microservices.grocery.orders.model.PurchaseOrder;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -39,6 +48,11 @@ public class PurchaseOrderController {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(PurchaseOrderController.class);
   private static final String PATH_ORDER = "/orders";
+  private static final String PATH_INTAKE = "/intake";
+  // Waiting time advised to the clients when the intake queue is full
+  private static final String INTAKE_RETRY_AFTER_SECONDS = "1";
+  private static final String REFERENCE_ATTRIBUTE = "reference";
+  private static final int MAX_PAGE_SIZE = 1000;
 
   @Autowired
   private PurchaseOrderDao orderDao;
@@ -46,6 +60,15 @@ public class PurchaseOrderController {
   @Autowired
   private MicroserviceControllerService microserviceControllerService;
 
+  @Autowired
+  private IdempotencyStore idempotencyStore;
+
+  @Autowired
+  private OrderIntake orderIntake;
+
+  @Autowired
+  private ApplicationPropertiesConfigurator appProperties;
+
   /**
    * Get a purchase order by its order reference
    * 
@@ -67,27 +90,32 @@ public class PurchaseOrderController {
    * 
    * @param productReference reference of a product ordered (optional parameter)
    * @param paid indicates if the order is paid or not (optional parameter)
+   * @param page number of the page starting from 0 when both product reference and paid are given
+   *        (optional parameter)
+   * @param size number of orders of the page when both product reference and paid are given
+   *        (optional parameter)
    * @return a list of purchase orders
    */
   @ApiOperation(value = "Find all the orders, order of a product and/or unpaid orders")
   @GetMapping(value = PATH_ORDER)
   public List<PurchaseOrder> getOrders(
       @RequestParam(value = "productReference", required = false) String productReference,
-      @RequestParam(value = "paid", required = false) Boolean paid) {
+      @RequestParam(value = "paid", required = false) Boolean paid,
+      @RequestParam(value = "page", required = false) Integer page,
+      @RequestParam(value = "size", required = false) Integer size) {
     List<PurchaseOrder> orders;
     if (productReference != null) {
       productReference = productReference.toUpperCase().trim();
     }
 
     if (productReference != null && !productReference.isBlank() && paid != null) {
-      List<Long> orderIds = orderDao.findByProductReferenceAndPaid(productReference, paid);
-      orders = new ArrayList<PurchaseOrder>();
-      for (Long orderId : orderIds) {
-        Optional<PurchaseOrder> order = orderDao.findById(orderId);
-        if (order.isPresent()) {
-          orders.add(order.get());
-        }
+      Pageable pageable = Pageable.unpaged();
+      if (page != null || size != null) {
+        pageable = PageRequest.of(page == null || page < 0 ? 0 : page,
+            size == null || size <= 0 ? MAX_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE),
+            Sort.by(REFERENCE_ATTRIBUTE));
       }
+      orders = orderDao.findByProductReferenceAndPaid(productReference, paid, pageable);
     } else if (productReference != null && !productReference.isBlank()) {
       orders = orderDao.findByProductReference(productReference);
     } else if (paid != null) {
@@ -111,11 +139,83 @@ public class PurchaseOrderController {
    * Create a new product
    * 
    * @param product the product to be created
-   * @return a response body with information about the created product or errors when occurred
+   * @param idempotencyKey key of the creation, a retry with the same key receives the response of
+   *        the first creation (optional header)
+   * @return a response body with information about the created product or errors when occurred,
+   *         202 with the URL of the status of the order when the orders are created asynchronously
+   *         (503 when too many orders are waiting)
    */
   @ApiOperation(value = "Create a new order of a product")
   @PostMapping(value = PATH_ORDER)
-  public ResponseEntity<Object> createOrder(@Valid @RequestBody PurchaseOrder purchaseOrder) {
+  public ResponseEntity<Object> createOrder(@Valid @RequestBody PurchaseOrder purchaseOrder,
+      @RequestHeader(value = IdempotencyStore.IDEMPOTENCY_KEY_HEADER,
+          required = false) String idempotencyKey) {
+    return idempotencyStore.execute(idempotencyKey, purchaseOrder,
+        () -> appProperties.isOrderIntakeAsync() ? enqueueOrder(purchaseOrder)
+            : saveNewOrder(purchaseOrder));
+  }
+
+  /*
+   * Validation of an order then queued for its insertion, answered with its status URL
+   */
+  private ResponseEntity<Object> enqueueOrder(PurchaseOrder purchaseOrder) {
+
+    ResponseEntity<Object> ErrorResult =
+        microserviceControllerService.prepareRequestEntityToPersist("", purchaseOrder,
+            MicroserviceControllerService.OPERATION_CREATE);
+    if (ErrorResult != null) {
+      return ErrorResult;
+    }
+
+    // No query on the request thread: an order queued or created by this instance is a duplicate
+    // of the intake, an order existing in the database is rejected by the batch insertion
+    OrderIntake.Submission submission = orderIntake.submit(purchaseOrder);
+    if (submission == OrderIntake.Submission.QUEUE_FULL) {
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+          .header(HttpHeaders.RETRY_AFTER, INTAKE_RETRY_AFTER_SECONDS)
+          .body("Too many orders in progress, retry later");
+    }
+    OrderIntakeStatus status = orderIntake.getStatus(purchaseOrder.getReference());
+    if (submission == OrderIntake.Submission.DUPLICATE) {
+      return ResponseEntity.status(HttpStatus.CONFLICT).body(status);
+    }
+    URI statusUri = ServletUriComponentsBuilder.fromCurrentContextPath()
+        .path(PATH_ORDER + PATH_INTAKE + "/{reference}")
+        .buildAndExpand(purchaseOrder.getReference()).toUri();
+    return ResponseEntity.accepted().location(statusUri).body(status);
+  }
+
+  /**
+   * Get the status of an order created asynchronously
+   * 
+   * @param reference reference of the order
+   * @return the status of the order: pending, created (with the URL of the order) or rejected
+   */
+  @ApiOperation(value = "Retrieve the status of an order created asynchronously")
+  @GetMapping(value = PATH_ORDER + PATH_INTAKE + "/{reference}")
+  public ResponseEntity<Object> getOrderIntakeStatus(@PathVariable String reference) {
+    PurchaseOrder searchOrder = new PurchaseOrder(reference.toUpperCase().trim());
+    OrderIntakeStatus status = orderIntake.getStatus(searchOrder.getReference());
+    if (status == null && orderDao.findByReference(searchOrder.getReference()) != null) {
+      // Status expired after the insertion
+      status = new OrderIntakeStatus(searchOrder.getReference(), OrderIntakeStatus.State.CREATED,
+          null);
+    }
+    if (status == null) {
+      throw new RecordNotFoundException(searchOrder);
+    } else if (status.getState() == OrderIntakeStatus.State.CREATED) {
+      return ResponseEntity.ok()
+          .location(microserviceControllerService.createTargetURI(searchOrder, PATH_ORDER))
+          .body(status);
+    } else {
+      return ResponseEntity.ok(status);
+    }
+  }
+
+  /*
+   * Creation of an order if its reference does not exist
+   */
+  private ResponseEntity<Object> saveNewOrder(PurchaseOrder purchaseOrder) {
 
     ResponseEntity<Object> ErrorResult =
         microserviceControllerService.prepareRequestEntityToPersist("", purchaseOrder,
@@ -0,0 +1,90 @@
+package com.cambyze.demo.microservices.grocery.orders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import com.cambyze.demo.microservices.grocery.orders.dao.PurchaseOrderDao;
+import com.cambyze.demo.microservices.grocery.orders.model.PurchaseOrder;
+import com.cambyze.demo.microservices.grocery.orders.web.controller.PurchaseOrderController;
+
+/**
+ * 
+ * Class to test that concurrent duplicates of an order creation with the same Idempotency-Key
+ * create the order once and that the later duplicates receive the recorded response
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@SpringBootTest
+class IdempotentOrderCreationTests {
+
+  private static final String REFERENCE = "IDEMTEST01";
+  private static final String PRODUCT_REFERENCE = "IDEMPRODUCT01";
+  private static final String IDEMPOTENCY_KEY = "idempotency-test-01";
+  private static final int SUBMISSIONS = 64;
+  private static final int THREADS = 16;
+  private static final Date ORDER_DATE = new Date();
+
+  @Autowired
+  private PurchaseOrderController orderController;
+
+  @Autowired
+  private PurchaseOrderDao orderDao;
+
+  @Test
+  void concurrentDuplicatesCreateOnce() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    List<Callable<HttpStatus>> submissions = new ArrayList<Callable<HttpStatus>>();
+    for (int i = 0; i < SUBMISSIONS; i++) {
+      submissions.add(
+          () -> orderController.createOrder(newOrder(3), IDEMPOTENCY_KEY).getStatusCode());
+    }
+    int accepted = 0;
+    try {
+      for (Future<HttpStatus> result : executor.invokeAll(submissions)) {
+        HttpStatus status = result.get();
+        if (status != HttpStatus.CONFLICT) {
+          assertFalse(status.isError());
+          accepted++;
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertTrue(accepted >= 1);
+    assertEquals(1, orderDao.findByProductReference(PRODUCT_REFERENCE).size());
+
+    ResponseEntity<Object> retry = orderController.createOrder(newOrder(3), IDEMPOTENCY_KEY);
+    assertFalse(retry.getStatusCode().isError());
+    assertEquals("true", retry.getHeaders().getFirst("Idempotent-Replayed"));
+
+    ResponseEntity<Object> reused = orderController.createOrder(newOrder(4), IDEMPOTENCY_KEY);
+    assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, reused.getStatusCode());
+    assertEquals(1, orderDao.findByProductReference(PRODUCT_REFERENCE).size());
+  }
+
+  private PurchaseOrder newOrder(int quantity) {
+    PurchaseOrder order = new PurchaseOrder(REFERENCE);
+    order.setProductReference(PRODUCT_REFERENCE);
+    order.setOrderDate(ORDER_DATE);
+    order.setQuantity(quantity);
+    order.setAmount(30.0);
+    order.setBalance(30.0);
+    order.setPaid(false);
+    return order;
+  }
+
+}
@@ -0,0 +1,134 @@
+package com.cambyze.demo.microservices.grocery.orders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import com.cambyze.demo.microservices.grocery.orders.dao.PurchaseOrderDao;
+import com.cambyze.demo.microservices.grocery.orders.intake.OrderIntake;
+import com.cambyze.demo.microservices.grocery.orders.intake.OrderIntakeStatus;
+import com.cambyze.demo.microservices.grocery.orders.model.PurchaseOrder;
+import com.cambyze.demo.microservices.grocery.orders.web.controller.PurchaseOrderController;
+
+/**
+ * 
+ * Class to test the asynchronous creation of the orders: 202 with the status URL, 503 when the
+ * queue is full, insertion by batches of the queued orders and rejection of the existing orders
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@SpringBootTest(properties = {"cambyze.demo.grocery.order-intake-async=true",
+    "cambyze.demo.grocery.order-intake-queue-capacity=" + OrderIntakeTests.QUEUE_CAPACITY})
+class OrderIntakeTests {
+
+  static final int QUEUE_CAPACITY = 3;
+
+  private static final String PRODUCT_REFERENCE = "INTAKEPRODUCT01";
+  private static final long WAIT_MILLIS = 5000;
+  private static final Date ORDER_DATE = new Date();
+
+  @Autowired
+  private PurchaseOrderController orderController;
+
+  @Autowired
+  private PurchaseOrderDao orderDao;
+
+  @Autowired
+  private OrderIntake orderIntake;
+
+  @BeforeEach
+  void setRequest() {
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest()));
+  }
+
+  @AfterEach
+  void resetRequest() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  void queuedOrderAnsweredWithStatusUrl() throws Exception {
+    ResponseEntity<Object> response = orderController.createOrder(newOrder("INTAKETEST01"), null);
+
+    assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+    assertTrue(response.getHeaders().getLocation().getPath()
+        .endsWith("/orders/intake/INTAKETEST01"));
+    assertEquals(OrderIntakeStatus.State.CREATED, awaitInsertion("INTAKETEST01"));
+    assertNotNull(orderDao.findByReference("INTAKETEST01"));
+
+    // The status of the created order answers a new order with the same reference
+    ResponseEntity<Object> duplicate = orderController.createOrder(newOrder("INTAKETEST01"), null);
+    assertEquals(HttpStatus.CONFLICT, duplicate.getStatusCode());
+  }
+
+  @Test
+  void orderExistingInDatabaseRejectedByBatch() throws Exception {
+    // Order of data.sql, unknown to the intake: the reference is checked by the batch insertion
+    ResponseEntity<Object> response = orderController.createOrder(newOrder("PO2045"), null);
+
+    assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+    assertEquals(OrderIntakeStatus.State.REJECTED, awaitInsertion("PO2045"));
+  }
+
+  @Test
+  void fullQueueAnsweredWith503ThenInsertedByBatch() throws Exception {
+    // No worker: the queued orders stay in the queue
+    orderIntake.stop();
+    List<String> references = new ArrayList<String>();
+    for (int i = 0; i < QUEUE_CAPACITY; i++) {
+      String reference = "INTAKEBATCH0" + i;
+      references.add(reference);
+      assertEquals(HttpStatus.ACCEPTED,
+          orderController.createOrder(newOrder(reference), null).getStatusCode());
+    }
+    ResponseEntity<Object> refused = orderController.createOrder(newOrder("INTAKEFULL01"), null);
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, refused.getStatusCode());
+    assertNotNull(refused.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+    // The queued orders are inserted together by the workers
+    orderIntake.start();
+    for (String reference : references) {
+      assertEquals(OrderIntakeStatus.State.CREATED, awaitInsertion(reference));
+    }
+    assertEquals(QUEUE_CAPACITY, orderDao.findExistingReferences(references).size());
+  }
+
+  private OrderIntakeStatus.State awaitInsertion(String reference) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WAIT_MILLIS);
+    OrderIntakeStatus status = orderIntake.getStatus(reference);
+    while (status.getState() == OrderIntakeStatus.State.PENDING
+        && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+      status = orderIntake.getStatus(reference);
+    }
+    return status.getState();
+  }
+
+  private PurchaseOrder newOrder(String reference) {
+    PurchaseOrder order = new PurchaseOrder(reference);
+    order.setProductReference(PRODUCT_REFERENCE);
+    order.setOrderDate(ORDER_DATE);
+    order.setQuantity(2);
+    order.setAmount(20.0);
+    order.setBalance(20.0);
+    order.setPaid(false);
+    return order;
+  }
+
+}
@@ -1,8 +1,8 @@
 package com.cambyze.demo.microservices.grocery.payments.dao;
 
+import java.util.Collection;
 import java.util.List;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 import com.cambyze.commons.microservices.dao.PersistEntityDao;
 import com.cambyze.demo.microservices.grocery.payments.model.Payment;
@@ -28,6 +28,26 @@ public interface PaymentDao extends PersistEntityDao<Payment> {
    */
   List<Payment> findByOrderReference(String orderReference);
 
+  /**
+   * Find a batch of payments of a specific order after a payment reference
+   * 
+   * @param orderReference reference of the purchase order
+   * @param reference reference after which payments are searched (empty for the first batch)
+   * @param pageable size of the batch, to be sorted by reference
+   * @return list of payments
+   */
+  List<Payment> findByOrderReferenceAndReferenceGreaterThan(String orderReference,
+      String reference, Pageable pageable);
+
+  /**
+   * Find the payments of several orders in one query (using the index on order reference and
+   * status)
+   * 
+   * @param orderReferences references of the purchase orders
+   * @return list of payments
+   */
+  List<Payment> findByOrderReferenceIn(Collection<String> orderReferences);
+
 
   /**
    * Find payments for a specific card
@@ -46,13 +66,34 @@ public interface PaymentDao extends PersistEntityDao<Payment> {
   List<Payment> findByStatus(PaymentStatus status);
 
   /**
-   * Find payments id according to parameters
+   * Find a batch of payments of a specific status after a payment reference
+   * 
+   * @param status status of the payment
+   * @param reference reference after which payments are searched (empty for the first batch)
+   * @param pageable size of the batch, to be sorted by reference
+   * @return list of payments
+   */
+  List<Payment> findByStatusAndReferenceGreaterThan(PaymentStatus status, String reference,
+      Pageable pageable);
+
+  /**
+   * Find payments according to parameters (using the index on order reference and status)
    * 
    * @param orderReference reference of the product
    * @param status status of the payment
+   * @param pageable page and sort of the payments
+   * @return list of payments
+   */
+  List<Payment> findByOrderReferenceAndStatus(String orderReference, PaymentStatus status,
+      Pageable pageable);
+
+  /**
+   * Find a batch of payments after a payment reference (keyset pagination on the unique index of
+   * the reference)
+   * 
+   * @param reference reference after which payments are searched (empty for the first batch)
+   * @param pageable size of the batch, to be sorted by reference
    * @return list of payments
    */
-  @Query("SELECT id FROM Payment WHERE orderReference = :orderReference AND status = :status")
-  List<Long> findByOrderReferenceAndStatus(@Param("orderReference") String orderReference,
-      @Param("status") PaymentStatus status);
+  List<Payment> findByReferenceGreaterThan(String reference, Pageable pageable);
 }
@@ -30,7 +30,8 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
  */
 @Entity
 @Table(indexes = {@Index(columnList = "reference", name = "indPaymentReference", unique = true),
-    @Index(columnList = "orderReference", name = "indPaymentOrderReference", unique = false)})
+    @Index(columnList = "orderReference, status", name = "indPaymentOrderReferenceStatus",
+        unique = false)})
 public class Payment extends PersistEntity {
 
   private static final String ENTITY_NAME = "payment";
@@ -1,22 +1,29 @@
 package com.cambyze.demo.microservices.grocery.payments.web.controller;
 
 import java.net.URI;
-import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 import javax.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import com.cambyze.commons.microservices.web.controller.MicroserviceControllerService;
 import com.cambyze.commons.microservices.web.exceptions.RecordNotFoundException;
+import com.cambyze.demo.microservices.grocery.idempotency.IdempotencyStore;
 import com.cambyze.demo.microservices.grocery.payments.dao.PaymentDao;
 import com.cambyze.demo.microservices.grocery.payments.model.Payment;
 import com.cambyze.demo.microservices.grocery.payments.model.PaymentStatus;
@@ -38,6 +45,8 @@ public class PaymentController {
   private static final Logger LOGGER = LoggerFactory.getLogger(PaymentController.class);
   private static final String PATH_PAYMENT = "/payments";
   private static final String CANCELATION_METHOD = "/cancelation";
+  private static final String REFERENCE_ATTRIBUTE = "reference";
+  private static final int MAX_PAGE_SIZE = 1000;
 
 
   @Autowired
@@ -46,6 +55,9 @@ public class PaymentController {
   @Autowired
   private MicroserviceControllerService microserviceControllerService;
 
+  @Autowired
+  private IdempotencyStore idempotencyStore;
+
   /**
    * Get a payment by its reference
    * 
@@ -63,40 +75,77 @@ public class PaymentController {
   }
 
 
+  /*
+   * Page size requested limited between 1 and the maximum
+   */
+  private int getPageSize(Integer size) {
+    if (size == null || size <= 0) {
+      return MAX_PAGE_SIZE;
+    } else {
+      return Math.min(size, MAX_PAGE_SIZE);
+    }
+  }
+
+
   /**
    * Find all the payments, payments of a purchase order and/or payment status
+   * <p>
+   * The payments are sorted by reference and limited to a page. When both order reference and
+   * status are given the page is chosen by its number, otherwise by the reference of the last
+   * payment of the previous page. A full page carries a header Link to the next page
    * 
    * @param orderReference reference of a product ordered (optional parameter)
    * @param status status of the payment (optional parameter)
-   * @return a list of purchase orders
+   * @param page number of the page starting from 0 when both order reference and status are given
+   *        (optional parameter)
+   * @param size number of payments of the page (optional parameter, at most 1000)
+   * @param after reference of the last payment of the previous page when the order reference and
+   *        the status are not both given (optional parameter)
+   * @return a page of payments sorted by reference
    */
   @ApiOperation(
       value = "Find all the payments, payments of a purchase order and/or masked card number")
   @GetMapping(value = PATH_PAYMENT)
-  public List<Payment> getPayments(
+  public ResponseEntity<List<Payment>> getPayments(
       @RequestParam(value = "orderReference", required = false) String orderReference,
-      @RequestParam(value = "status", required = false) PaymentStatus status) {
+      @RequestParam(value = "status", required = false) PaymentStatus status,
+      @RequestParam(value = "page", required = false) Integer page,
+      @RequestParam(value = "size", required = false) Integer size,
+      @RequestParam(value = "after", required = false) String after) {
     List<Payment> payments;
+    String nextPage = null;
+    int pageSize = getPageSize(size);
 
     if (orderReference != null) {
       orderReference = orderReference.toUpperCase().trim();
     }
 
     if (orderReference != null && !orderReference.isBlank() && status != null) {
-      List<Long> paymentIds = paymentDao.findByOrderReferenceAndStatus(orderReference, status);
-      payments = new ArrayList<Payment>();
-      for (Long paymentId : paymentIds) {
-        Optional<Payment> payment = paymentDao.findById(paymentId);
-        if (payment.isPresent()) {
-          payments.add(payment.get());
-        }
+      int pageNumber = page == null || page < 0 ? 0 : page;
+      payments = paymentDao.findByOrderReferenceAndStatus(orderReference, status,
+          PageRequest.of(pageNumber, pageSize, Sort.by(REFERENCE_ATTRIBUTE)));
+      if (payments.size() == pageSize) {
+        nextPage = ServletUriComponentsBuilder.fromCurrentRequest()
+            .replaceQueryParam("page", pageNumber + 1).replaceQueryParam("size", pageSize)
+            .build().encode().toUriString();
       }
-    } else if (orderReference != null && !orderReference.isBlank()) {
-      payments = paymentDao.findByOrderReference(orderReference);
-    } else if (status != null) {
-      payments = paymentDao.findByStatus(status);
     } else {
-      payments = paymentDao.findAll();
+      // The payments are read page by page after the reference of the previous page
+      String afterReference = after == null ? "" : after.toUpperCase().trim();
+      Pageable pageable = PageRequest.of(0, pageSize, Sort.by(REFERENCE_ATTRIBUTE));
+      if (orderReference != null && !orderReference.isBlank()) {
+        payments = paymentDao.findByOrderReferenceAndReferenceGreaterThan(orderReference,
+            afterReference, pageable);
+      } else if (status != null) {
+        payments = paymentDao.findByStatusAndReferenceGreaterThan(status, afterReference, pageable);
+      } else {
+        payments = paymentDao.findByReferenceGreaterThan(afterReference, pageable);
+      }
+      if (payments.size() == pageSize) {
+        nextPage = ServletUriComponentsBuilder.fromCurrentRequest()
+            .replaceQueryParam("after", payments.get(payments.size() - 1).getReference())
+            .replaceQueryParam("size", pageSize).build().encode().toUriString();
+      }
     }
 
     if (payments == null || payments.isEmpty()) {
@@ -105,20 +154,63 @@ public class PaymentController {
     } else {
       LOGGER.info("Payments availables for the order reference " + orderReference + " and status = "
           + status + " = " + payments.size());
-      return payments;
+      ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+      if (nextPage != null) {
+        response.header(HttpHeaders.LINK, "<" + nextPage + ">; rel=\"next\"");
+      }
+      return response.body(payments);
     }
   }
 
 
+  /**
+   * Find the payments of several purchase orders in one call
+   * 
+   * @param orderReferences references of the purchase orders, comma separated or repeated (at most
+   *        1000)
+   * @return the payments of the orders, empty when the orders have no payment
+   */
+  @ApiOperation(value = "Find the payments of several purchase orders")
+  @GetMapping(value = PATH_PAYMENT, params = "orderReferences")
+  public ResponseEntity<Object> getPaymentsByOrders(
+      @RequestParam(value = "orderReferences") List<String> orderReferences) {
+    Set<String> searchReferences = new LinkedHashSet<String>();
+    for (String orderReference : orderReferences) {
+      if (orderReference != null && !orderReference.isBlank()) {
+        searchReferences.add(orderReference.toUpperCase().trim());
+      }
+    }
+    if (searchReferences.isEmpty() || searchReferences.size() > MAX_PAGE_SIZE) {
+      return ResponseEntity.badRequest()
+          .body("Between 1 and " + MAX_PAGE_SIZE + " order references are expected");
+    }
+
+    List<Payment> payments = paymentDao.findByOrderReferenceIn(searchReferences);
+    LOGGER.info("Payments found for " + searchReferences.size() + " orders = " + payments.size());
+    return ResponseEntity.ok(payments);
+  }
+
+
   /**
    * Process a payment for a purchase order
    * 
    * @param payment the payment to be created
+   * @param idempotencyKey key of the payment, a retry with the same key receives the response of
+   *        the first payment (optional header)
    * @return a response body with information about the created payment or errors when occurred
    */
   @ApiOperation(value = "Create a new order of a product")
   @PostMapping(value = PATH_PAYMENT)
-  public ResponseEntity<Object> payOrder(@Valid @RequestBody Payment payment) {
+  public ResponseEntity<Object> payOrder(@Valid @RequestBody Payment payment,
+      @RequestHeader(value = IdempotencyStore.IDEMPOTENCY_KEY_HEADER,
+          required = false) String idempotencyKey) {
+    return idempotencyStore.execute(idempotencyKey, payment, () -> saveNewPayment(payment));
+  }
+
+  /*
+   * Creation of a valid payment if its reference does not exist
+   */
+  private ResponseEntity<Object> saveNewPayment(Payment payment) {
 
     ResponseEntity<Object> ErrorResult = microserviceControllerService
         .prepareRequestEntityToPersist("", payment, MicroserviceControllerService.OPERATION_CREATE);
@@ -0,0 +1,123 @@
+package com.cambyze.demo.microservices.grocery.products.bulk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response body for a bulk import of products
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+public class ImportReport {
+
+  /**
+   * Error of one row of the import
+   */
+  public static class RowError {
+    private long row;
+    private String reference;
+    private String message;
+
+    public RowError() {
+      super();
+    }
+
+    public RowError(long row, String reference, String message) {
+      super();
+      this.row = row;
+      this.reference = reference;
+      this.message = message;
+    }
+
+    public long getRow() {
+      return row;
+    }
+
+    public void setRow(long row) {
+      this.row = row;
+    }
+
+    public String getReference() {
+      return reference;
+    }
+
+    public void setReference(String reference) {
+      this.reference = reference;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+
+    public void setMessage(String message) {
+      this.message = message;
+    }
+  }
+
+  private long received;
+  private long imported;
+  private long rejected;
+  private long durationMillis;
+  private double rowsPerSecond;
+  private List<RowError> errors = new ArrayList<RowError>();
+
+  public void addError(long row, String reference, String message) {
+    errors.add(new RowError(row, reference, message));
+    rejected++;
+  }
+
+  public long getReceived() {
+    return received;
+  }
+
+  public void setReceived(long received) {
+    this.received = received;
+  }
+
+  public long getImported() {
+    return imported;
+  }
+
+  public void setImported(long imported) {
+    this.imported = imported;
+  }
+
+  public long getRejected() {
+    return rejected;
+  }
+
+  public void setRejected(long rejected) {
+    this.rejected = rejected;
+  }
+
+  public long getDurationMillis() {
+    return durationMillis;
+  }
+
+  public void setDurationMillis(long durationMillis) {
+    this.durationMillis = durationMillis;
+  }
+
+  public double getRowsPerSecond() {
+    return rowsPerSecond;
+  }
+
+  public void setRowsPerSecond(double rowsPerSecond) {
+    this.rowsPerSecond = rowsPerSecond;
+  }
+
+  public List<RowError> getErrors() {
+    return errors;
+  }
+
+  public void setErrors(List<RowError> errors) {
+    this.errors = errors;
+  }
+
+  @Override
+  public String toString() {
+    return "ImportReport{received=" + received + ", imported=" + imported + ", rejected="
+        + rejected + ", duration=" + durationMillis + "ms, rows/s=" + rowsPerSecond + "}";
+  }
+}
@@ -0,0 +1,204 @@
+package com.cambyze.demo.microservices.grocery.products.bulk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import com.cambyze.commons.tools.MathTools;
+import com.cambyze.demo.microservices.grocery.products.catalog.CatalogVersion;
+import com.cambyze.demo.microservices.grocery.products.configuration.ApplicationPropertiesConfigurator;
+import com.cambyze.demo.microservices.grocery.products.dao.ProductDao;
+import com.cambyze.demo.microservices.grocery.products.margins.MarginAggregates;
+import com.cambyze.demo.microservices.grocery.products.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Bulk import of products read from a JSON array or from NDJSON (one product per line)
+ * <p>
+ * Rows are processed by chunks: the existing references of a chunk are searched with one query
+ * and the new products are inserted with JDBC batching (see JpaConfig)
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class ProductBulkImporter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProductBulkImporter.class);
+
+  @Autowired
+  private ProductDao productDao;
+
+  @Autowired
+  private ApplicationPropertiesConfigurator appProperties;
+
+  @Autowired
+  private MarginAggregates marginAggregates;
+
+  @Autowired
+  private CatalogVersion catalogVersion;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private Validator validator;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  /*
+   * A row read from the input with its position
+   */
+  private static class Row {
+    private final long number;
+    private final Product product;
+
+    Row(long number, Product product) {
+      this.number = number;
+      this.product = product;
+    }
+  }
+
+  private Double getRoundAmount(Double number) {
+    if (number != null) {
+      return MathTools.roundWithDecimals(number, appProperties.getNumberDecimals());
+    } else
+      return number;
+  }
+
+  /**
+   * Import the products of the input
+   * 
+   * @param input JSON array or NDJSON of products
+   * @return report with the number of imported rows, the errors per row and the throughput
+   * @throws IOException when the input cannot be read
+   */
+  public ImportReport importProducts(InputStream input) throws IOException {
+    long start = System.nanoTime();
+    int chunkSize = appProperties.getImportBatchSize();
+    ImportReport report = new ImportReport();
+    List<Row> chunk = new ArrayList<Row>(chunkSize);
+    long rowNumber = 0;
+
+    // A root JSON array is unwrapped by the iterator, NDJSON is read as a sequence of values
+    try (MappingIterator<Product> iterator =
+        objectMapper.readerFor(Product.class).readValues(input)) {
+      while (iterator.hasNextValue()) {
+        Product product = iterator.nextValue();
+        rowNumber++;
+        if (isValid(rowNumber, product, report)) {
+          chunk.add(new Row(rowNumber, product));
+        }
+        if (chunk.size() == chunkSize) {
+          importChunk(chunk, report);
+          chunk.clear();
+        }
+      }
+    } catch (JsonProcessingException e) {
+      // The input cannot be read after an invalid row
+      report.addError(rowNumber + 1, null,
+          "Invalid JSON, import stopped: " + e.getOriginalMessage());
+    }
+    if (!chunk.isEmpty()) {
+      importChunk(chunk, report);
+    }
+
+    long durationNanos = Math.max(System.nanoTime() - start, 1);
+    report.setReceived(rowNumber);
+    report.setDurationMillis(durationNanos / 1_000_000);
+    report.setRowsPerSecond(
+        MathTools.roundWithDecimals(report.getImported() * 1e9 / durationNanos, 2));
+    LOGGER.info("Products import: " + report);
+    return report;
+  }
+
+  /*
+   * Format the product as in the creation of a product and check its constraints
+   */
+  private boolean isValid(long rowNumber, Product product, ImportReport report) {
+    if (product.getReference() != null) {
+      product.setReference(product.getReference().toUpperCase().trim());
+    }
+    product.setPrice(getRoundAmount(product.getPrice()));
+    Set<ConstraintViolation<Product>> violations = validator.validate(product);
+    for (ConstraintViolation<Product> violation : violations) {
+      report.addError(rowNumber, product.getReference(),
+          violation.getPropertyPath() + " " + violation.getMessage());
+    }
+    return violations.isEmpty();
+  }
+
+  /*
+   * Reject the duplicates of the chunk then insert the new products in one batch
+   */
+  private void importChunk(List<Row> chunk, ImportReport report) {
+    Set<String> references = new HashSet<String>(chunk.size() * 2);
+    for (Row row : chunk) {
+      references.add(row.product.getReference());
+    }
+    Set<String> existingReferences =
+        new HashSet<String>(productDao.findExistingReferences(references));
+
+    Set<String> chunkReferences = new HashSet<String>(chunk.size() * 2);
+    List<Row> newRows = new ArrayList<Row>(chunk.size());
+    for (Row row : chunk) {
+      String reference = row.product.getReference();
+      if (existingReferences.contains(reference)) {
+        report.addError(row.number, reference, "The product already exists");
+      } else if (!chunkReferences.add(reference)) {
+        report.addError(row.number, reference, "The product is duplicated in the import");
+      } else {
+        newRows.add(row);
+      }
+    }
+
+    List<Product> products = new ArrayList<Product>(newRows.size());
+    for (Row row : newRows) {
+      products.add(row.product);
+    }
+    try {
+      productDao.saveAll(products);
+      for (Product product : products) {
+        marginAggregates.add(marginAggregates.calculate(product));
+      }
+      report.setImported(report.getImported() + products.size());
+    } catch (DataIntegrityViolationException e) {
+      // A product created concurrently: the rows of the chunk are saved one by one
+      LOGGER.warn("Products import: batch rejected, rows inserted one by one");
+      entityManager.clear();
+      for (Row row : newRows) {
+        importRow(row, report);
+      }
+    }
+    if (!products.isEmpty()) {
+      catalogVersion.increment();
+    }
+    // Detach the products of the chunk to keep the persistence context empty
+    entityManager.clear();
+  }
+
+  private void importRow(Row row, ImportReport report) {
+    row.product.setId(0);
+    try {
+      productDao.save(row.product);
+      marginAggregates.add(marginAggregates.calculate(row.product));
+      report.setImported(report.getImported() + 1);
+    } catch (DataIntegrityViolationException e) {
+      report.addError(row.number, row.product.getReference(), "The product already exists");
+    }
+  }
+}
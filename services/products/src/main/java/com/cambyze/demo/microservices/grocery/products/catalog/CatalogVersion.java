@@ -0,0 +1,128 @@
+package com.cambyze.demo.microservices.grocery.products.catalog;
+
+import java.util.concurrent.TimeUnit;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import com.cambyze.demo.microservices.grocery.products.configuration.ApplicationPropertiesConfigurator;
+import com.cambyze.demo.microservices.grocery.products.dao.CatalogRevisionDao;
+import com.cambyze.demo.microservices.grocery.products.model.CatalogRevision;
+
+/**
+ * Version of the product catalog, incremented on every modification of the products
+ * <p>
+ * The version is stored in the database (CatalogRevision) so that all the instances of the service
+ * issue the same entity tag. It is read again at most every
+ * cambyze.demo.grocery.catalog-version-ttl-millis: a modification done by another instance is seen
+ * after this delay, a modification done by this instance at once. The entity tag contains the
+ * creation of the revision so that a tag issued before the database is recreated is never
+ * considered as current
+ * <p>
+ * The version covers the catalog: creations, modifications, removals and imports of products. The
+ * reservations and releases of stock do not change it, so that the orders do not serialize on
+ * the revision row nor invalidate every entity tag: the stock of a product may be older than its
+ * entity tag
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class CatalogVersion {
+
+  /**
+   * Version read from the database
+   */
+  private static class Snapshot {
+    private final long created;
+    private final long version;
+    private final String eTag;
+    private final long lastModified;
+    private final long readAt;
+
+    private Snapshot(CatalogRevision revision, long readAt) {
+      this.created = revision.getCreated();
+      this.version = revision.getVersion();
+      this.eTag = "\"" + Long.toHexString(revision.getCreated()) + "-" + revision.getVersion()
+          + "\"";
+      this.lastModified = revision.getModified();
+      this.readAt = readAt;
+    }
+  }
+
+  private final CatalogRevisionDao revisionDao;
+  private final long ttlNanos;
+  private volatile Snapshot snapshot;
+
+  public CatalogVersion(CatalogRevisionDao revisionDao,
+      ApplicationPropertiesConfigurator appProperties) {
+    this.revisionDao = revisionDao;
+    this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(appProperties.getCatalogVersionTtlMillis());
+  }
+
+  /**
+   * To be called after each modification of the products
+   */
+  public void increment() {
+    if (revisionDao.increment(CatalogRevision.CATALOG_ID, System.currentTimeMillis()) == 0) {
+      createRevision();
+      revisionDao.increment(CatalogRevision.CATALOG_ID, System.currentTimeMillis());
+    }
+    publish(read());
+  }
+
+  /**
+   * Strong entity tag of the current version
+   * 
+   * @return the entity tag with its quotes
+   */
+  public String getETag() {
+    return getSnapshot().eTag;
+  }
+
+  /**
+   * Date of the last modification
+   * 
+   * @return number of milliseconds since the epoch
+   */
+  public long getLastModified() {
+    return getSnapshot().lastModified;
+  }
+
+  private Snapshot getSnapshot() {
+    Snapshot current = snapshot;
+    if (current == null || System.nanoTime() - current.readAt > ttlNanos) {
+      current = publish(read());
+    }
+    return current;
+  }
+
+  /*
+   * Keep the most recent version when a read and a modification cross
+   */
+  private synchronized Snapshot publish(Snapshot read) {
+    Snapshot current = snapshot;
+    if (current == null || current.created != read.created || current.version <= read.version) {
+      snapshot = read;
+      return read;
+    }
+    return current;
+  }
+
+  private Snapshot read() {
+    long readAt = System.nanoTime();
+    CatalogRevision revision =
+        revisionDao.findById(CatalogRevision.CATALOG_ID).orElseGet(this::createRevision);
+    return new Snapshot(revision, readAt);
+  }
+
+  /*
+   * First use of the database: the revision is created by one of the instances
+   */
+  private CatalogRevision createRevision() {
+    try {
+      return revisionDao.saveAndFlush(
+          new CatalogRevision(CatalogRevision.CATALOG_ID, System.currentTimeMillis()));
+    } catch (DataIntegrityViolationException e) {
+      return revisionDao.findById(CatalogRevision.CATALOG_ID).orElseThrow();
+    }
+  }
+}
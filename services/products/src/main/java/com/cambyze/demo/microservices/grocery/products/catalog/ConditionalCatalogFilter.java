@@ -0,0 +1,126 @@
+package com.cambyze.demo.microservices.grocery.products.catalog;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Conditional GET of the products
+ * <p>
+ * The 200 responses carry the entity tag and the date of the current catalog version. A request
+ * whose If-None-Match (or If-Modified-Since) matches the current version is answered 304 Not
+ * Modified without calling the controller. The margins are calculated per instance and the stock
+ * moves do not change the version (see CatalogVersion): the margins endpoints are not conditional
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class ConditionalCatalogFilter extends OncePerRequestFilter {
+
+  private static final String PATH_PRODUCT = "/products";
+  private static final String PATH_MARGINS = PATH_PRODUCT + "/margins";
+
+  @Autowired
+  private CatalogVersion catalogVersion;
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    String method = request.getMethod();
+    String path = request.getServletPath();
+    return !("GET".equals(method) || "HEAD".equals(method))
+        || !(path.equals(PATH_PRODUCT) || path.startsWith(PATH_PRODUCT + "/"))
+        || path.equals(PATH_MARGINS) || path.startsWith(PATH_MARGINS + "/");
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    // Read before the controller: a modification in between only makes the tag older than the body
+    String eTag = catalogVersion.getETag();
+    long lastModified = catalogVersion.getLastModified();
+
+    if (isNotModified(request, eTag, lastModified)) {
+      response.setHeader(HttpHeaders.ETAG, eTag);
+      response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    } else {
+      ValidatedResponse validatedResponse = new ValidatedResponse(response, eTag, lastModified);
+      filterChain.doFilter(request, validatedResponse);
+      validatedResponse.addValidators();
+    }
+  }
+
+  private boolean isNotModified(HttpServletRequest request, String eTag, long lastModified) {
+    String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+    if (ifNoneMatch != null) {
+      for (String requestETag : ifNoneMatch.split(",")) {
+        String tag = requestETag.trim();
+        if (tag.equals(eTag) || tag.equals("*")) {
+          return true;
+        }
+      }
+      return false;
+    }
+    long ifModifiedSince;
+    try {
+      ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+    // HTTP dates have a precision of one second
+    return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+  }
+
+  /**
+   * Response which receives the entity tag and the date only when its status is 200, checked when
+   * the body starts to be written or else at the end of the request
+   */
+  private static class ValidatedResponse extends HttpServletResponseWrapper {
+
+    private final String eTag;
+    private final long lastModified;
+    private boolean validatorsChecked;
+
+    ValidatedResponse(HttpServletResponse response, String eTag, long lastModified) {
+      super(response);
+      this.eTag = eTag;
+      this.lastModified = lastModified;
+    }
+
+    void addValidators() {
+      if (!validatorsChecked && !isCommitted() && getStatus() == HttpServletResponse.SC_OK) {
+        setHeader(HttpHeaders.ETAG, eTag);
+        setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+      }
+      validatorsChecked = true;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      addValidators();
+      return super.getOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      addValidators();
+      return super.getWriter();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      addValidators();
+      super.flushBuffer();
+    }
+  }
+}
@@ -16,6 +16,16 @@ public class ApplicationPropertiesConfigurator {
 
   private int numberDecimals;
 
+  private long productCacheMaxSize = 1000;
+
+  private long productCacheTtlSeconds = 60;
+
+  private int marginsPageSize = 100;
+
+  private int importBatchSize = 500;
+
+  private long catalogVersionTtlMillis = 1000;
+
   public int getNumberDecimals() {
     return numberDecimals;
   }
@@ -24,6 +34,46 @@ public class ApplicationPropertiesConfigurator {
     this.numberDecimals = numberDecimals;
   }
 
+  public long getProductCacheMaxSize() {
+    return productCacheMaxSize;
+  }
+
+  public void setProductCacheMaxSize(long productCacheMaxSize) {
+    this.productCacheMaxSize = productCacheMaxSize;
+  }
+
+  public long getProductCacheTtlSeconds() {
+    return productCacheTtlSeconds;
+  }
+
+  public void setProductCacheTtlSeconds(long productCacheTtlSeconds) {
+    this.productCacheTtlSeconds = productCacheTtlSeconds;
+  }
+
+  public int getMarginsPageSize() {
+    return marginsPageSize;
+  }
+
+  public void setMarginsPageSize(int marginsPageSize) {
+    this.marginsPageSize = marginsPageSize;
+  }
+
+  public int getImportBatchSize() {
+    return importBatchSize;
+  }
+
+  public void setImportBatchSize(int importBatchSize) {
+    this.importBatchSize = importBatchSize;
+  }
+
+  public long getCatalogVersionTtlMillis() {
+    return catalogVersionTtlMillis;
+  }
+
+  public void setCatalogVersionTtlMillis(long catalogVersionTtlMillis) {
+    this.catalogVersionTtlMillis = catalogVersionTtlMillis;
+  }
+
 
 
 }
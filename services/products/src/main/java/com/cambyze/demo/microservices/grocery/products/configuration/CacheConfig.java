@@ -0,0 +1,42 @@
+package com.cambyze.demo.microservices.grocery.products.configuration;
+
+import java.util.concurrent.TimeUnit;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Bounded in-process cache of the products read by reference
+ * <p>
+ * The key contains the catalog version: the products cached before a modification of the catalog
+ * are no more read and expire. The stock moves do not change the version: a product cached by an
+ * instance shows the stock moved by another instance after
+ * cambyze.demo.grocery.product-cache-ttl-seconds
+ * <p>
+ * Statistics are recorded so that the hits, misses and evictions are published by the actuator
+ * (metrics cache.gets, cache.evictions and cache.size)
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+  public static final String PRODUCTS_CACHE = "products";
+
+  @Bean
+  public CacheManager cacheManager(ApplicationPropertiesConfigurator appProperties) {
+    CaffeineCacheManager cacheManager = new CaffeineCacheManager(PRODUCTS_CACHE);
+    cacheManager.setCaffeine(Caffeine.newBuilder()
+        .maximumSize(appProperties.getProductCacheMaxSize())
+        .expireAfterWrite(appProperties.getProductCacheTtlSeconds(), TimeUnit.SECONDS)
+        .recordStats());
+    // Products not found are never cached
+    cacheManager.setAllowNullValues(false);
+    return cacheManager;
+  }
+}
@@ -0,0 +1,24 @@
+package com.cambyze.demo.microservices.grocery.products.configuration;
+
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hibernate configuration to group the inserts of the bulk import in JDBC batches
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Configuration
+public class JpaConfig {
+
+  @Bean
+  public HibernatePropertiesCustomizer jdbcBatchingCustomizer(
+      ApplicationPropertiesConfigurator appProperties) {
+    return hibernateProperties -> {
+      hibernateProperties.put("hibernate.jdbc.batch_size", appProperties.getImportBatchSize());
+      hibernateProperties.put("hibernate.order_inserts", true);
+    };
+  }
+}
@@ -0,0 +1,32 @@
+package com.cambyze.demo.microservices.grocery.products.dao;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import com.cambyze.demo.microservices.grocery.products.model.CatalogRevision;
+
+/**
+ * DAO for the revision of the product catalog
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Repository
+public interface CatalogRevisionDao extends JpaRepository<CatalogRevision, Long> {
+
+  /**
+   * Increment the version of the catalog in one statement, whatever the instance
+   * 
+   * @param id id of the catalog revision
+   * @param modified date of the modification in milliseconds since the epoch
+   * @return 1 if incremented, 0 if the revision does not exist yet
+   */
+  @Modifying(clearAutomatically = true)
+  @Transactional
+  @Query("UPDATE CatalogRevision SET version = version + 1, modified = :modified WHERE id = :id")
+  int increment(@Param("id") long id, @Param("modified") long modified);
+
+}
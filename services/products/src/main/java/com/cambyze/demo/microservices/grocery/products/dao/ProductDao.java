@@ -1,9 +1,14 @@
 package com.cambyze.demo.microservices.grocery.products.dao;
 
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import com.cambyze.commons.microservices.dao.PersistEntityDao;
 import com.cambyze.demo.microservices.grocery.products.model.Product;
 
@@ -28,15 +33,90 @@ public interface ProductDao extends PersistEntityDao<Product> {
   List<Product> findByAvailableGreaterThan(int quantity);
 
   /**
-   * find products with quantity and price criteria
+   * find a page of products with a stock available
+   * 
+   * @param quantity the stock must be strictly greater than this quantity
+   * @param pageable page and sort of the products
+   * @return list of products
+   */
+  List<Product> findByAvailableGreaterThan(int quantity, Pageable pageable);
+
+  /**
+   * find a batch of products after a product reference (keyset pagination on the unique index of
+   * the reference)
+   * 
+   * @param reference reference after which products are searched (empty for the first batch)
+   * @param pageable size of the batch, to be sorted by reference
+   * @return list of products
+   */
+  List<Product> findByReferenceGreaterThan(String reference, Pageable pageable);
+
+  /**
+   * find the products of a set of references
+   * 
+   * @param references references of products formatted in upper case
+   * @return list of the products found
+   */
+  List<Product> findByReferenceIn(Collection<String> references);
+
+  /**
+   * find the references already used among a set of references
+   * 
+   * @param references references of products formatted in upper case
+   * @return list of the existing references
+   */
+  @Query("SELECT reference FROM Product WHERE reference IN :references")
+  List<String> findExistingReferences(@Param("references") Collection<String> references);
+
+  /**
+   * Decrease the stock of a product only if enough quantity is available, in one statement
+   * 
+   * @param reference reference of the product formatted in upper case
+   * @param quantity quantity to reserve
+   * @return 1 if the stock is reserved, 0 if the product is unknown or the stock insufficient
+   */
+  @Modifying(clearAutomatically = true)
+  @Transactional
+  @Query("UPDATE Product SET available = available - :quantity "
+      + "WHERE reference = :reference AND available >= :quantity")
+  int reserveStock(@Param("reference") String reference, @Param("quantity") int quantity);
+
+  /**
+   * Increase the stock of a product in one statement, within the maximum stock allowed
+   * 
+   * @param reference reference of the product formatted in upper case
+   * @param quantity quantity to release
+   * @param maxStock maximum stock of a product
+   * @return 1 if the stock is released, 0 if the product is unknown or the maximum is exceeded
+   */
+  @Modifying(clearAutomatically = true)
+  @Transactional
+  @Query("UPDATE Product SET available = available + :quantity "
+      + "WHERE reference = :reference AND available + :quantity <= :maxStock")
+  int releaseStock(@Param("reference") String reference, @Param("quantity") int quantity,
+      @Param("maxStock") int maxStock);
+
+  /**
+   * find products with quantity and price criteria (using the index on price and available)
+   * 
+   * @param priceMax price maximum for the product
+   * @param quantity the stock must be strictly greater than this quantity
+   * @param sort sort of the products
+   * @return list of products
+   */
+  List<Product> findByPriceLessThanEqualAndAvailableGreaterThan(double priceMax, int quantity,
+      Sort sort);
+
+  /**
+   * find a page of products with quantity and price criteria (using the index on price and
+   * available)
    * 
    * @param priceMax price maximum for the product
-   * @param minQuantity minimum quantity in the stock
+   * @param quantity the stock must be strictly greater than this quantity
+   * @param pageable page and sort of the products
    * @return list of products
    */
-  @Query("SELECT id, reference, name, imageURL, price, purchasePrice, available FROM Product "
-      + "WHERE price <= :priceMax AND available >= :minQuantity")
-  List<Product> findByMaxPriceAndMinQuantity(@Param("priceMax") double priceMax,
-      @Param("minQuantity") int minQuantity);
+  List<Product> findByPriceLessThanEqualAndAvailableGreaterThan(double priceMax, int quantity,
+      Pageable pageable);
 
 }
@@ -0,0 +1,224 @@
+package com.cambyze.demo.microservices.grocery.products.margins;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import com.cambyze.commons.tools.MathTools;
+import com.cambyze.demo.microservices.grocery.products.configuration.ApplicationPropertiesConfigurator;
+import com.cambyze.demo.microservices.grocery.products.dao.ProductDao;
+import com.cambyze.demo.microservices.grocery.products.model.Product;
+
+/**
+ * Running aggregates of the margins of the catalog
+ * <p>
+ * Rebuilt from the database when the application is ready then maintained on every creation,
+ * modification, removal and change of stock of a product, so that the summary is read without any
+ * query
+ * <p>
+ * The aggregates are approximate and kept per instance: each instance only sees its own changes
+ * until its next rebuild, a change done while the rebuild reads the products may be counted twice,
+ * and the stock moves and the imports are applied without the lock of the product, so a stock
+ * move crossing a modification of the price uses one of the two prices. The exact margins are
+ * calculated from the database by the margins endpoints
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Component
+public class MarginAggregates {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MarginAggregates.class);
+  private static final int REBUILD_BATCH_SIZE = 1000;
+  private static final int LOCK_STRIPES = 64;
+
+  @Autowired
+  private ProductDao productDao;
+
+  @Autowired
+  private ApplicationPropertiesConfigurator appProperties;
+
+  /**
+   * Margins of one product
+   */
+  public static class Margin {
+    private final double unitMargin;
+    private final double potentialMargin;
+
+    public Margin(double unitMargin, double potentialMargin) {
+      this.unitMargin = unitMargin;
+      this.potentialMargin = potentialMargin;
+    }
+
+    public double getUnitMargin() {
+      return unitMargin;
+    }
+
+    public double getPotentialMargin() {
+      return potentialMargin;
+    }
+  }
+
+  private long productCount;
+  private BigDecimal totalUnitMargin = BigDecimal.ZERO;
+  private BigDecimal totalPotentialMargin = BigDecimal.ZERO;
+  // Number of products per unit margin to find the min and the max after a removal
+  private final TreeMap<Double, Integer> unitMargins = new TreeMap<Double, Integer>();
+
+  private volatile MarginSummary summary = new MarginSummary(0, 0.0, 0.0, null, null);
+
+  // Locks of the products, shared by the references with the same stripe
+  private final Object[] locks = new Object[LOCK_STRIPES];
+
+  public MarginAggregates() {
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      locks[i] = new Object();
+    }
+  }
+
+  private double getRoundAmount(double number) {
+    return MathTools.roundWithDecimals(number, appProperties.getNumberDecimals());
+  }
+
+  /**
+   * Calculate the margins of a product
+   * 
+   * @param product the product
+   * @return the unit margin and the potential margin according to the stock
+   */
+  public Margin calculate(Product product) {
+    double unitMargin = 0.0;
+    double potentialMargin = 0.0;
+    if (product.getPrice() != null && product.getPurchasePrice() != null) {
+      unitMargin = getRoundAmount(product.getPrice() - product.getPurchasePrice());
+      if (product.getAvailable() != null) {
+        potentialMargin = getRoundAmount(unitMargin * product.getAvailable());
+      }
+    }
+    return new Margin(unitMargin, potentialMargin);
+  }
+
+  /**
+   * Lock of a product to hold while reading the product, saving it and changing its margins, so
+   * that the margins removed are always the ones of the committed product and concurrent
+   * modifications of the same product are applied in the order of their commits. The stock moves
+   * do not take it (see moveStock)
+   * 
+   * @param reference reference of the product
+   * @return the lock of the reference
+   */
+  public Object getLock(String reference) {
+    String key = Product.formatReference(reference);
+    return locks[Math.floorMod(key == null ? 0 : key.hashCode(), LOCK_STRIPES)];
+  }
+
+  /**
+   * Get the summary of the margins of the catalog
+   * 
+   * @return the last computed summary
+   */
+  public MarginSummary getSummary() {
+    return summary;
+  }
+
+  /**
+   * Add the margins of a created product
+   * 
+   * @param margin margins of the product
+   */
+  public synchronized void add(Margin margin) {
+    addMargin(margin);
+    publishSummary();
+  }
+
+  /**
+   * Remove the margins of a removed product
+   * 
+   * @param margin margins of the product before its removal
+   */
+  public synchronized void remove(Margin margin) {
+    removeMargin(margin);
+    publishSummary();
+  }
+
+  /**
+   * Replace the margins of a modified product
+   * 
+   * @param oldMargin margins of the product before its modification
+   * @param newMargin margins of the product after its modification
+   */
+  public synchronized void replace(Margin oldMargin, Margin newMargin) {
+    removeMargin(oldMargin);
+    addMargin(newMargin);
+    publishSummary();
+  }
+
+  /**
+   * Apply a move of the stock of a product: only its potential margin changes
+   * 
+   * @param product the product, read after the move for its prices
+   * @param quantity quantity added to the stock, negative for a reservation
+   */
+  public synchronized void moveStock(Product product, int quantity) {
+    double unitMargin = calculate(product).getUnitMargin();
+    totalPotentialMargin =
+        totalPotentialMargin.add(BigDecimal.valueOf(getRoundAmount(unitMargin * quantity)));
+    publishSummary();
+  }
+
+  /**
+   * Rebuild the aggregates from all the products of the database
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void rebuild() {
+    productCount = 0;
+    totalUnitMargin = BigDecimal.ZERO;
+    totalPotentialMargin = BigDecimal.ZERO;
+    unitMargins.clear();
+    String after = "";
+    List<Product> products;
+    do {
+      products = productDao.findByReferenceGreaterThan(after,
+          PageRequest.of(0, REBUILD_BATCH_SIZE, Sort.by("reference")));
+      for (Product product : products) {
+        addMargin(calculate(product));
+        after = product.getReference();
+      }
+    } while (products.size() == REBUILD_BATCH_SIZE);
+    publishSummary();
+    LOGGER.info("Margin aggregates rebuilt: " + summary);
+  }
+
+  private void addMargin(Margin margin) {
+    productCount++;
+    totalUnitMargin = totalUnitMargin.add(BigDecimal.valueOf(margin.getUnitMargin()));
+    totalPotentialMargin =
+        totalPotentialMargin.add(BigDecimal.valueOf(margin.getPotentialMargin()));
+    unitMargins.merge(margin.getUnitMargin(), 1, Integer::sum);
+  }
+
+  private void removeMargin(Margin margin) {
+    productCount--;
+    totalUnitMargin = totalUnitMargin.subtract(BigDecimal.valueOf(margin.getUnitMargin()));
+    totalPotentialMargin =
+        totalPotentialMargin.subtract(BigDecimal.valueOf(margin.getPotentialMargin()));
+    unitMargins.computeIfPresent(margin.getUnitMargin(),
+        (unitMargin, count) -> count > 1 ? count - 1 : null);
+  }
+
+  private void publishSummary() {
+    Map.Entry<Double, Integer> min = unitMargins.firstEntry();
+    Map.Entry<Double, Integer> max = unitMargins.lastEntry();
+    summary = new MarginSummary(productCount, getRoundAmount(totalUnitMargin.doubleValue()),
+        getRoundAmount(totalPotentialMargin.doubleValue()), min == null ? null : min.getKey(),
+        max == null ? null : max.getKey());
+  }
+}
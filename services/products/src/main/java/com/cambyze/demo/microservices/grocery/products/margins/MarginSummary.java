@@ -0,0 +1,77 @@
+package com.cambyze.demo.microservices.grocery.products.margins;
+
+/**
+ * Response body for the margins of the whole catalog
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+public class MarginSummary {
+
+  private long productCount;
+  private Double totalUnitMargin;
+  private Double totalPotentialMargin;
+  private Double minUnitMargin;
+  private Double maxUnitMargin;
+
+  public MarginSummary() {
+    super();
+  }
+
+  public MarginSummary(long productCount, Double totalUnitMargin, Double totalPotentialMargin,
+      Double minUnitMargin, Double maxUnitMargin) {
+    super();
+    this.productCount = productCount;
+    this.totalUnitMargin = totalUnitMargin;
+    this.totalPotentialMargin = totalPotentialMargin;
+    this.minUnitMargin = minUnitMargin;
+    this.maxUnitMargin = maxUnitMargin;
+  }
+
+  public long getProductCount() {
+    return productCount;
+  }
+
+  public void setProductCount(long productCount) {
+    this.productCount = productCount;
+  }
+
+  public Double getTotalUnitMargin() {
+    return totalUnitMargin;
+  }
+
+  public void setTotalUnitMargin(Double totalUnitMargin) {
+    this.totalUnitMargin = totalUnitMargin;
+  }
+
+  public Double getTotalPotentialMargin() {
+    return totalPotentialMargin;
+  }
+
+  public void setTotalPotentialMargin(Double totalPotentialMargin) {
+    this.totalPotentialMargin = totalPotentialMargin;
+  }
+
+  public Double getMinUnitMargin() {
+    return minUnitMargin;
+  }
+
+  public void setMinUnitMargin(Double minUnitMargin) {
+    this.minUnitMargin = minUnitMargin;
+  }
+
+  public Double getMaxUnitMargin() {
+    return maxUnitMargin;
+  }
+
+  public void setMaxUnitMargin(Double maxUnitMargin) {
+    this.maxUnitMargin = maxUnitMargin;
+  }
+
+  @Override
+  public String toString() {
+    return "MarginSummary{products=" + productCount + ", total unit margin=" + totalUnitMargin
+        + ", total potential margin=" + totalPotentialMargin + ", min unit margin="
+        + minUnitMargin + ", max unit margin=" + maxUnitMargin + "}";
+  }
+}
@@ -0,0 +1,62 @@
+package com.cambyze.demo.microservices.grocery.products.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Persistence entity for the revision of the product catalog, one row shared by all the instances
+ * of the service
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Entity
+public class CatalogRevision {
+
+  public static final long CATALOG_ID = 1;
+
+  @Id
+  private long id;
+
+  // Creation of the row, so that a version is never reused after the database is recreated
+  private long created;
+
+  private long version;
+
+  // Date of the last modification of the products in milliseconds since the epoch
+  private long modified;
+
+  public CatalogRevision() {
+    super();
+  }
+
+  public CatalogRevision(long id, long created) {
+    super();
+    this.id = id;
+    this.created = created;
+    this.modified = created;
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public long getCreated() {
+    return created;
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public long getModified() {
+    return modified;
+  }
+
+  @Override
+  public String toString() {
+    return "CatalogRevision{id=" + id + ", created=" + created + ", version=" + version
+        + ", modified=" + modified + "}";
+  }
+
+}
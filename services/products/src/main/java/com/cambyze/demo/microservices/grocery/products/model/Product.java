@@ -24,14 +24,21 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
  * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
  */
 @Entity
-@Table(indexes = {@Index(columnList = "reference", name = "indProductReference", unique = true)})
+@Table(indexes = {@Index(columnList = "reference", name = "indProductReference", unique = true),
+    @Index(columnList = "price, available", name = "indProductPriceAvailable", unique = false)})
 public class Product extends PersistEntity {
 
   @Transient
   private static final String ENTITY_NAME = "product";
 
+  @Transient
+  public static final int MAX_AVAILABLE = 10000000;
+
+  @Transient
+  public static final int MAX_PRICE = 100000;
+
   @Id
-  @SequenceGenerator(name = "productSequence", initialValue = 1, allocationSize = 10)
+  @SequenceGenerator(name = "productSequence", initialValue = 1, allocationSize = 500)
   @GeneratedValue(generator = "productSequence")
   @JsonIgnore
   private long id;
@@ -47,7 +54,7 @@ public class Product extends PersistEntity {
   private String imageURL;
 
   @Min(value = 0)
-  @Max(value = 100000)
+  @Max(value = MAX_PRICE)
   private Double price;
 
   @Min(value = 0)
@@ -55,7 +62,7 @@ public class Product extends PersistEntity {
   private Double purchasePrice;
 
   @Min(value = 0)
-  @Max(value = 10000000)
+  @Max(value = MAX_AVAILABLE)
   private Integer available;
 
   public Product() {
@@ -80,13 +87,25 @@ public class Product extends PersistEntity {
     this.available = available;
   }
 
+  /**
+   * Format a product reference as stored: upper case String without spaces around
+   * 
+   * @param reference the reference received
+   * @return the formatted reference
+   */
+  public static String formatReference(String reference) {
+    if (reference != null) {
+      return reference.toUpperCase().trim();
+    } else {
+      return reference;
+    }
+  }
+
   /*
    * Format reference a upper case String
    */
   private void formatProductReference() {
-    if (this.reference != null) {
-      this.reference = this.reference.toUpperCase().trim();
-    }
+    this.reference = formatReference(this.reference);
   }
 
 
@@ -1,12 +1,26 @@
 package com.cambyze.demo.microservices.grocery.products.web.controller;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,12 +31,24 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import com.cambyze.commons.microservices.web.controller.MicroserviceControllerService;
 import com.cambyze.commons.microservices.web.exceptions.RecordNotFoundException;
 import com.cambyze.commons.tools.MathTools;
+import com.cambyze.demo.microservices.grocery.products.bulk.ImportReport;
+import com.cambyze.demo.microservices.grocery.products.bulk.ProductBulkImporter;
+import com.cambyze.demo.microservices.grocery.products.catalog.CatalogVersion;
 import com.cambyze.demo.microservices.grocery.products.configuration.ApplicationPropertiesConfigurator;
+import com.cambyze.demo.microservices.grocery.products.configuration.CacheConfig;
 import com.cambyze.demo.microservices.grocery.products.dao.ProductDao;
+import com.cambyze.demo.microservices.grocery.products.margins.MarginAggregates;
+import com.cambyze.demo.microservices.grocery.products.margins.MarginAggregates.Margin;
+import com.cambyze.demo.microservices.grocery.products.margins.MarginSummary;
 import com.cambyze.demo.microservices.grocery.products.model.Product;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 
@@ -40,6 +66,19 @@ public class ProductController {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ProductController.class);
   private static final String PATH_PRODUCT = "/products";
+  // Products are cached with their reference formatted as in Product.formatProductReference and
+  // the catalog version, so that a body cached before a modification of the catalog, here or on
+  // another instance, is never sent with the entity tag of a later version
+  private static final String CACHE_KEY_VERSION = " + '-' + @catalogVersion.getETag()";
+  private static final String CACHE_KEY_REFERENCE =
+      "#reference.toUpperCase().trim()" + CACHE_KEY_VERSION;
+  private static final String REFERENCE_ATTRIBUTE = "reference";
+  private static final String MEDIA_TYPE_NDJSON = "application/x-ndjson";
+  private static final int MAX_PAGE_SIZE = 1000;
+  private static final List<String> SORT_ATTRIBUTES =
+      List.of(REFERENCE_ATTRIBUTE, "name", "price", "available");
+  private static final String RESERVATION_METHOD = "/reservation";
+  private static final String RELEASE_METHOD = "/release";
 
   @Autowired
   private ProductDao productDao;
@@ -50,6 +89,21 @@ public class ProductController {
   @Autowired
   private ApplicationPropertiesConfigurator appProperties;
 
+  @Autowired
+  private MarginAggregates marginAggregates;
+
+  @Autowired
+  private ProductBulkImporter productBulkImporter;
+
+  @Autowired
+  private CatalogVersion catalogVersion;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
   /**
    * Response body for calculated margins
    */
@@ -95,6 +149,41 @@ public class ProductController {
   }
 
 
+  /**
+   * Response body for products searched by references
+   */
+  public class ProductsLookup {
+    private List<Product> products;
+    private List<String> missingReferences;
+
+    public ProductsLookup() {
+      super();
+    }
+
+    public ProductsLookup(List<Product> products, List<String> missingReferences) {
+      super();
+      this.products = products;
+      this.missingReferences = missingReferences;
+    }
+
+    public List<Product> getProducts() {
+      return products;
+    }
+
+    public void setProducts(List<Product> products) {
+      this.products = products;
+    }
+
+    public List<String> getMissingReferences() {
+      return missingReferences;
+    }
+
+    public void setMissingReferences(List<String> missingReferences) {
+      this.missingReferences = missingReferences;
+    }
+  }
+
+
   private Double getRoundAmount(Double number) {
     if (number != null) {
       return MathTools.roundWithDecimals(number, appProperties.getNumberDecimals());
@@ -110,6 +199,7 @@ public class ProductController {
    */
   @ApiOperation(value = "Retrieve a product with its product reference")
   @GetMapping(value = PATH_PRODUCT + "/{reference}")
+  @Cacheable(cacheNames = CacheConfig.PRODUCTS_CACHE, key = CACHE_KEY_REFERENCE)
   public Product getProductbyReference(@PathVariable String reference) throws RuntimeException {
     Product searchProduct = new Product(reference);
     microserviceControllerService.prepareSearchingEntity(searchProduct);
@@ -118,64 +208,241 @@ public class ProductController {
     return existingProduct;
   }
 
+  /**
+   * Get several products by their product references in one call
+   * 
+   * @param references references of the products to find, comma separated or repeated (at most
+   *        1000)
+   * @return the products found and the references not found
+   */
+  @ApiOperation(value = "Retrieve several products with their product references")
+  @GetMapping(value = PATH_PRODUCT, params = "references")
+  public ResponseEntity<Object> getProductsByReferences(
+      @RequestParam(value = "references") List<String> references) {
+    Set<String> searchReferences = new LinkedHashSet<String>();
+    for (String reference : references) {
+      if (reference != null && !reference.isBlank()) {
+        searchReferences.add(Product.formatReference(reference));
+      }
+    }
+    if (searchReferences.isEmpty() || searchReferences.size() > MAX_PAGE_SIZE) {
+      return ResponseEntity.badRequest()
+          .body("Between 1 and " + MAX_PAGE_SIZE + " references are expected");
+    }
+
+    List<Product> products = productDao.findByReferenceIn(searchReferences);
+    for (Product product : products) {
+      searchReferences.remove(product.getReference());
+    }
+    LOGGER.info("Products found by references = " + products.size() + ", missing = "
+        + searchReferences.size());
+    return ResponseEntity
+        .ok(new ProductsLookup(products, new ArrayList<String>(searchReferences)));
+  }
+
+  /*
+   * Sort of the products from a parameter "attribute" or "attribute,desc", then by reference so
+   * that the pages of products with the same value neither skip nor repeat a product
+   */
+  private Sort getSort(String sort) {
+    if (sort == null || sort.isBlank()) {
+      return Sort.by(REFERENCE_ATTRIBUTE);
+    }
+    String[] sortParts = sort.split(",");
+    String attribute = sortParts[0].trim();
+    if (!SORT_ATTRIBUTES.contains(attribute)) {
+      attribute = REFERENCE_ATTRIBUTE;
+    }
+    Sort attributeSort = Sort.by(attribute);
+    if (sortParts.length > 1 && "desc".equalsIgnoreCase(sortParts[1].trim())) {
+      attributeSort = attributeSort.descending();
+    }
+    if (attribute.equals(REFERENCE_ATTRIBUTE)) {
+      return attributeSort;
+    } else {
+      return attributeSort.and(Sort.by(REFERENCE_ATTRIBUTE));
+    }
+  }
+
   /**
    * Find products available for at least the requested quantity
+   * <p>
+   * With a maximum price, the products are filtered by price and stock with the index on price and
+   * available. The products are paged only when a page or a size is requested
    * 
    * @param quantityMin quantity minimum available for the product (it is an optional parameter) *
+   * @param priceMax maximum price of the product (optional parameter)
+   * @param page number of the page starting from 0 (optional parameter)
+   * @param size number of products of the page (optional parameter)
+   * @param sort sort of the products as "attribute" or "attribute,desc" on reference, name, price
+   *        or available (optional parameter)
    * @return a list of products
    * 
    */
   @ApiOperation(value = "Find products available for at least the requested quantity")
   @GetMapping(value = PATH_PRODUCT)
   public List<Product> getProducts(
-      @RequestParam(value = "quantityMin", defaultValue = "0", required = false) int quantityMin) {
+      @RequestParam(value = "quantityMin", defaultValue = "0", required = false) int quantityMin,
+      @RequestParam(value = "priceMax", required = false) Double priceMax,
+      @RequestParam(value = "page", required = false) Integer page,
+      @RequestParam(value = "size", required = false) Integer size,
+      @RequestParam(value = "sort", required = false) String sort) {
     if (quantityMin < 0) {
       quantityMin = 0;
     }
-    List<Product> products = productDao.findByAvailableGreaterThan(quantityMin);
+    List<Product> products;
+    if (page == null && size == null) {
+      if (priceMax == null) {
+        products = productDao.findByAvailableGreaterThan(quantityMin);
+      } else {
+        products = productDao.findByPriceLessThanEqualAndAvailableGreaterThan(priceMax,
+            quantityMin, getSort(sort));
+      }
+    } else {
+      Pageable pageable = PageRequest.of(page == null || page < 0 ? 0 : page,
+          size == null || size <= 0 ? MAX_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE),
+          getSort(sort));
+      if (priceMax == null) {
+        products = productDao.findByAvailableGreaterThan(quantityMin, pageable);
+      } else {
+        products = productDao.findByPriceLessThanEqualAndAvailableGreaterThan(priceMax,
+            quantityMin, pageable);
+      }
+    }
     if (products == null || products.isEmpty()) {
       Product searchProduct = new Product();
       throw new RecordNotFoundException(searchProduct);
     } else {
-      LOGGER.info(
-          "Products avalaibles for the min quantity " + quantityMin + " = " + products.size());
+      LOGGER.info("Products avalaibles for the min quantity " + quantityMin + " and max price "
+          + priceMax + " = " + products.size());
       return products;
     }
   }
 
 
+  /*
+   * Calculate the unit and potential margins of a product
+   */
+  private ProductMargin calculateMargin(Product product) {
+    Margin margin = marginAggregates.calculate(product);
+    LOGGER.debug("Margins for the product " + product.getReference() + " = "
+        + margin.getUnitMargin() + " , " + margin.getPotentialMargin());
+    return new ProductMargin(product, margin.getUnitMargin(), margin.getPotentialMargin());
+  }
+
+  /*
+   * Read the batch of products following the reference, sorted by reference
+   */
+  private List<Product> findProductsBatch(String after, int size) {
+    String reference = after == null ? "" : after.toUpperCase().trim();
+    return productDao.findByReferenceGreaterThan(reference,
+        PageRequest.of(0, size, Sort.by(REFERENCE_ATTRIBUTE)));
+  }
+
+  /*
+   * Page size requested limited between 1 and the maximum
+   */
+  private int getPageSize(Integer size) {
+    if (size == null || size <= 0) {
+      return appProperties.getMarginsPageSize();
+    } else {
+      return Math.min(size, MAX_PAGE_SIZE);
+    }
+  }
+
   /**
-   * Calculate margin per product
+   * Calculate margin per product, page by page
+   * <p>
+   * Without the parameters after and size, the first page is returned (size
+   * cambyze.demo.grocery.margins-page-size); all the margins are given by /margins/stream. A page
+   * of margins carries a header Link to the next page when it is full
    * 
-   * @return list of products with the margin per product and the potential margin according to the
-   *         stock
+   * @param after reference of the last product of the previous page (optional parameter, the first
+   *        page is returned when missing)
+   * @param size number of products of the page (optional parameter)
+   * @return list of products sorted by reference with the margin per product and the potential
+   *         margin according to the stock, empty when there is no more page
    */
-  @ApiOperation(value = "Calculate margin per product")
+  @ApiOperation(value = "Calculate margin per product, page by page sorted by product reference")
   @GetMapping(value = PATH_PRODUCT + "/margins")
-  public List<ProductMargin> getProductsMargins() {
-    Product searchProduct = new Product();
-    List<ProductMargin> productsMargins = new ArrayList<ProductMargin>();
-    List<Product> products = productDao.findAll();
+  public ResponseEntity<List<ProductMargin>> getProductsMargins(
+      @RequestParam(value = "after", required = false) String after,
+      @RequestParam(value = "size", required = false) Integer size) {
+    int pageSize = getPageSize(size);
+    List<Product> products = findProductsBatch(after, pageSize);
+    if (products.isEmpty() && (after == null || after.isBlank())) {
+      Product searchProduct = new Product();
+      throw new RecordNotFoundException(searchProduct);
+    }
+    List<ProductMargin> productsMargins = new ArrayList<ProductMargin>(products.size());
     for (Product product : products) {
-      Double unitMargin = 0.0;
-      Double potentialMargin = 0.0;
-      if (product.getPrice() != null && product.getPurchasePrice() != null) {
-        unitMargin = getRoundAmount(product.getPrice() - product.getPurchasePrice());
-        if (product.getAvailable() != null) {
-          potentialMargin = getRoundAmount(unitMargin * product.getAvailable());
-        }
-      }
-      LOGGER.info("Margins for the product " + product.getReference() + " = " + unitMargin + " , "
-          + potentialMargin);
-      productsMargins.add(new ProductMargin(product, unitMargin, potentialMargin));
+      productsMargins.add(calculateMargin(product));
     }
-    if (productsMargins == null || productsMargins.isEmpty()) {
-      throw new RecordNotFoundException(searchProduct);
-    } else {
-      return productsMargins;
+    LOGGER.info("Margins calculated for " + productsMargins.size() + " products after " + after);
+
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+    if (products.size() == pageSize) {
+      // Keyset of the next page: reference of the last product of this page
+      String next = ServletUriComponentsBuilder.fromCurrentRequest()
+          .replaceQueryParam("after", products.get(products.size() - 1).getReference())
+          .replaceQueryParam("size", pageSize).build().encode().toUriString();
+      response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
     }
+    return response.body(productsMargins);
   }
 
+  /**
+   * Summary of the margins of the whole catalog
+   * <p>
+   * The summary is maintained in memory by each instance (see MarginAggregates): it is approximate
+   * and may differ between the instances, /margins/stream gives the exact margins
+   * 
+   * @return number of products, total of the unit and potential margins, min and max unit margins
+   */
+  @ApiOperation(value = "Summary of the margins of the whole catalog, approximate per instance")
+  @GetMapping(value = PATH_PRODUCT + "/margins/summary")
+  public MarginSummary getProductsMarginsSummary() {
+    return marginAggregates.getSummary();
+  }
+
+  /**
+   * Calculate margin for all the products streamed as NDJSON (one JSON margin per line)
+   * <p>
+   * Products are read by batches so that the memory used does not depend on the catalog size
+   * 
+   * @param size number of products read per batch (optional parameter)
+   * @return stream of products with the margin per product and the potential margin
+   */
+  @ApiOperation(value = "Calculate margin per product streamed as NDJSON")
+  @GetMapping(value = PATH_PRODUCT + "/margins/stream", produces = MEDIA_TYPE_NDJSON)
+  public ResponseEntity<StreamingResponseBody> streamProductsMargins(
+      @RequestParam(value = "size", required = false) Integer size) {
+    int batchSize = getPageSize(size);
+    // The response stream must stay open between two margins
+    ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    StreamingResponseBody body = outputStream -> {
+      long count = 0;
+      List<Product> products = findProductsBatch(null, batchSize);
+      while (!products.isEmpty()) {
+        for (Product product : products) {
+          writer.writeValue(outputStream, calculateMargin(product));
+          outputStream.write('\n');
+        }
+        outputStream.flush();
+        // Detach the products of the batch to keep the persistence context empty
+        entityManager.clear();
+        count += products.size();
+        if (products.size() < batchSize) {
+          break;
+        }
+        products =
+            findProductsBatch(products.get(products.size() - 1).getReference(), batchSize);
+      }
+      LOGGER.info("Margins streamed for " + count + " products");
+    };
+    return ResponseEntity.ok().contentType(MediaType.parseMediaType(MEDIA_TYPE_NDJSON))
+        .body(body);
+  }
 
   /**
    * Create a new product
@@ -185,6 +452,9 @@ public class ProductController {
    */
   @ApiOperation(value = "Create a new product in the inventory")
   @PostMapping(value = PATH_PRODUCT)
+  @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE,
+      key = "#product.reference.toUpperCase().trim()" + CACHE_KEY_VERSION,
+      condition = "#product.reference != null")
   public ResponseEntity<Object> createProduct(@Valid @RequestBody Product product) {
 
     ResponseEntity<Object> ErrorResult = microserviceControllerService
@@ -193,29 +463,137 @@ public class ProductController {
       return ErrorResult;
     } else {
 
-      // Verify if the product does not already exist
-      Product existingProduct = productDao.findByReference(product.getReference());
+      synchronized (marginAggregates.getLock(product.getReference())) {
+        // Verify if the product does not already exist
+        Product existingProduct = productDao.findByReference(product.getReference());
 
-      URI uri = microserviceControllerService.createTargetURI(product, PATH_PRODUCT);
-      ErrorResult = microserviceControllerService.prepareEntityForCUD(product, existingProduct, uri,
-          MicroserviceControllerService.OPERATION_CREATE);
-      if (ErrorResult != null) {
-        return ErrorResult;
-      } else {
+        URI uri = microserviceControllerService.createTargetURI(product, PATH_PRODUCT);
+        ErrorResult = microserviceControllerService.prepareEntityForCUD(product, existingProduct,
+            uri, MicroserviceControllerService.OPERATION_CREATE);
+        if (ErrorResult != null) {
+          return ErrorResult;
+        } else {
 
-        product.setPrice(getRoundAmount(product.getPrice()));
-        product.setPurchasePrice(product.getPurchasePrice());
+          product.setPrice(getRoundAmount(product.getPrice()));
+          product.setPurchasePrice(product.getPurchasePrice());
 
-        // creation of the product
-        Product newProduct = productDao.save(product);
+          // creation of the product
+          Product newProduct = productDao.save(product);
+          marginAggregates.add(marginAggregates.calculate(newProduct));
+          catalogVersion.increment();
 
-        return microserviceControllerService.createResponseBodyCUDSuccessful(newProduct, uri,
-            MicroserviceControllerService.OPERATION_CREATE);
+          return microserviceControllerService.createResponseBodyCUDSuccessful(newProduct, uri,
+              MicroserviceControllerService.OPERATION_CREATE);
+        }
       }
     }
   }
 
 
+  /*
+   * Build the response of a change of stock: the modified product, an error when the product does
+   * not exist or a conflict when the stock does not allow the change. The potential margin of the
+   * quantity moved is applied to the aggregates, without lock: the stock is changed by one
+   * conditional update
+   */
+  private ResponseEntity<Object> createStockResponse(Product product, boolean changed,
+      int quantity) {
+    Product existingProduct = productDao.findByReference(product.getReference());
+    URI uri = microserviceControllerService.createTargetURI(product, PATH_PRODUCT);
+    ResponseEntity<Object> ErrorResult = microserviceControllerService.prepareEntityForCUD(product,
+        existingProduct, uri, MicroserviceControllerService.OPERATION_OTHERS);
+    if (ErrorResult != null) {
+      return ErrorResult;
+    } else if (!changed) {
+      return ResponseEntity.status(HttpStatus.CONFLICT)
+          .body("The stock of the product " + existingProduct.getReference() + " ("
+              + existingProduct.getAvailable() + ") does not allow to move " + quantity);
+    } else {
+      // The stock moves do not change the catalog version (see CatalogVersion)
+      marginAggregates.moveStock(existingProduct, quantity);
+      return microserviceControllerService.createResponseBodyCUDSuccessful(existingProduct, uri,
+          MicroserviceControllerService.OPERATION_OTHERS);
+    }
+  }
+
+  /**
+   * Reserve a quantity of the stock of a product
+   * <p>
+   * The stock is decreased by one conditional update so that concurrent reservations never sell
+   * more than the available quantity
+   * 
+   * @param reference the reference of the product
+   * @param quantity the quantity to reserve
+   * @return a response body with the product and its remaining stock, a conflict when the stock is
+   *         insufficient or errors when occurred
+   */
+  @ApiOperation(value = "Reserve a quantity of the stock of a product")
+  @PostMapping(value = PATH_PRODUCT + "/{reference}" + RESERVATION_METHOD)
+  @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = CACHE_KEY_REFERENCE)
+  public ResponseEntity<Object> reserveStock(@PathVariable String reference,
+      @RequestParam(value = "quantity") int quantity) {
+
+    Product product = new Product(reference);
+    ResponseEntity<Object> ErrorResult =
+        microserviceControllerService.prepareRequestEntityToPersist(reference, product,
+            MicroserviceControllerService.OPERATION_OTHERS);
+    if (ErrorResult != null) {
+      return ErrorResult;
+    } else if (quantity <= 0) {
+      return ResponseEntity.badRequest().body("The quantity to reserve must be positive");
+    } else {
+      product.setReference(reference.toUpperCase().trim());
+      boolean reserved = productDao.reserveStock(product.getReference(), quantity) == 1;
+      return createStockResponse(product, reserved, -quantity);
+    }
+  }
+
+  /**
+   * Release a quantity previously reserved to the stock of a product
+   * 
+   * @param reference the reference of the product
+   * @param quantity the quantity to release
+   * @return a response body with the product and its stock, a conflict when the maximum stock is
+   *         exceeded or errors when occurred
+   */
+  @ApiOperation(value = "Release a quantity to the stock of a product")
+  @PostMapping(value = PATH_PRODUCT + "/{reference}" + RELEASE_METHOD)
+  @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = CACHE_KEY_REFERENCE)
+  public ResponseEntity<Object> releaseStock(@PathVariable String reference,
+      @RequestParam(value = "quantity") int quantity) {
+
+    Product product = new Product(reference);
+    ResponseEntity<Object> ErrorResult =
+        microserviceControllerService.prepareRequestEntityToPersist(reference, product,
+            MicroserviceControllerService.OPERATION_OTHERS);
+    if (ErrorResult != null) {
+      return ErrorResult;
+    } else if (quantity <= 0) {
+      return ResponseEntity.badRequest().body("The quantity to release must be positive");
+    } else {
+      product.setReference(reference.toUpperCase().trim());
+      boolean released =
+          productDao.releaseStock(product.getReference(), quantity, Product.MAX_AVAILABLE) == 1;
+      return createStockResponse(product, released, quantity);
+    }
+  }
+
+
+  /**
+   * Import a list of products
+   * 
+   * @param request request with a JSON array of products or NDJSON (one product per line)
+   * @return a report with the number of imported products, the errors per row and the throughput
+   * @throws IOException when the request body cannot be read
+   */
+  @ApiOperation(value = "Import a list of products in the inventory")
+  @PostMapping(value = PATH_PRODUCT + "/import",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MEDIA_TYPE_NDJSON})
+  public ImportReport importProducts(HttpServletRequest request) throws IOException {
+    return productBulkImporter.importProducts(request.getInputStream());
+  }
+
+
   /**
    * Remove a product
    *
@@ -224,6 +602,7 @@ public class ProductController {
    */
   @ApiOperation(value = "Remove a product from the inventory")
   @DeleteMapping(value = PATH_PRODUCT + "/{reference}")
+  @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = CACHE_KEY_REFERENCE)
   public ResponseEntity<Object> deleteProduct(@PathVariable String reference) {
 
     Product product = new Product(reference);
@@ -234,22 +613,27 @@ public class ProductController {
       return ErrorResult;
     } else {
 
-      // Search the product to remove
-      Product existingProduct = productDao.findByReference(product.getReference());
+      synchronized (marginAggregates.getLock(product.getReference())) {
+        // Search the product to remove
+        Product existingProduct = productDao.findByReference(product.getReference());
 
-      URI uri = microserviceControllerService.createTargetURI(product, PATH_PRODUCT);
-      ErrorResult = microserviceControllerService.prepareEntityForCUD(product, existingProduct, uri,
-          MicroserviceControllerService.OPERATION_DELETE);
-      if (ErrorResult != null) {
-        return ErrorResult;
-      } else {
+        URI uri = microserviceControllerService.createTargetURI(product, PATH_PRODUCT);
+        ErrorResult = microserviceControllerService.prepareEntityForCUD(product, existingProduct,
+            uri, MicroserviceControllerService.OPERATION_DELETE);
+        if (ErrorResult != null) {
+          return ErrorResult;
+        } else {
 
-        // remove the product
-        productDao.deleteById(product.getId());
+          // remove the product
+          Margin oldMargin = marginAggregates.calculate(existingProduct);
+          productDao.deleteById(product.getId());
+          marginAggregates.remove(oldMargin);
+          catalogVersion.increment();
 
-        return microserviceControllerService.createResponseBodyCUDSuccessful(existingProduct, uri,
-            MicroserviceControllerService.OPERATION_DELETE);
+          return microserviceControllerService.createResponseBodyCUDSuccessful(existingProduct,
+              uri, MicroserviceControllerService.OPERATION_DELETE);
 
+        }
       }
     }
   }
@@ -263,6 +647,7 @@ public class ProductController {
    */
   @ApiOperation(value = "Modify all the attributes of a product of the inventory")
   @PutMapping(value = PATH_PRODUCT + "/{reference}")
+  @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = CACHE_KEY_REFERENCE)
   public ResponseEntity<Object> updateProduct(@RequestBody Product product,
       @PathVariable String reference) {
 
@@ -273,23 +658,28 @@ public class ProductController {
       return ErrorResult;
     } else {
 
-      // Search the product to update
-      Product existingProduct = productDao.findByReference(product.getReference());
-
-      URI uri = microserviceControllerService.createTargetURI(product, PATH_PRODUCT);
-      ErrorResult = microserviceControllerService.prepareEntityForCUD(product, existingProduct, uri,
-          MicroserviceControllerService.OPERATION_FULL_UPDATE);
-      if (ErrorResult != null) {
-        return ErrorResult;
-      } else {
-
-        product.setPrice(getRoundAmount(product.getPrice()));
-        product.setPurchasePrice(product.getPurchasePrice());
-        // Save the modification
-        productDao.save(product);
-
-        return microserviceControllerService.createResponseBodyCUDSuccessful(product, uri,
-            MicroserviceControllerService.OPERATION_FULL_UPDATE);
+      synchronized (marginAggregates.getLock(product.getReference())) {
+        // Search the product to update
+        Product existingProduct = productDao.findByReference(product.getReference());
+
+        URI uri = microserviceControllerService.createTargetURI(product, PATH_PRODUCT);
+        ErrorResult = microserviceControllerService.prepareEntityForCUD(product, existingProduct,
+            uri, MicroserviceControllerService.OPERATION_FULL_UPDATE);
+        if (ErrorResult != null) {
+          return ErrorResult;
+        } else {
+
+          product.setPrice(getRoundAmount(product.getPrice()));
+          product.setPurchasePrice(product.getPurchasePrice());
+          // Save the modification
+          Margin oldMargin = marginAggregates.calculate(existingProduct);
+          productDao.save(product);
+          marginAggregates.replace(oldMargin, marginAggregates.calculate(product));
+          catalogVersion.increment();
+
+          return microserviceControllerService.createResponseBodyCUDSuccessful(product, uri,
+              MicroserviceControllerService.OPERATION_FULL_UPDATE);
+        }
       }
     }
   }
@@ -305,6 +695,7 @@ public class ProductController {
    */
   @ApiOperation(value = "Modify some attributes of a product of the inventory")
   @PatchMapping(value = PATH_PRODUCT + "/{reference}")
+  @CacheEvict(cacheNames = CacheConfig.PRODUCTS_CACHE, key = CACHE_KEY_REFERENCE)
   public ResponseEntity<Object> partialUpdateProduct(@RequestBody Product product,
       @PathVariable String reference) {
 
@@ -315,38 +706,44 @@ public class ProductController {
       return ErrorResult;
     } else {
 
-      // Search the product to update
-      Product existingProduct = productDao.findByReference(product.getReference());
-
-      URI uri = microserviceControllerService.createTargetURI(product, PATH_PRODUCT);
-      ErrorResult = microserviceControllerService.prepareEntityForCUD(product, existingProduct, uri,
-          MicroserviceControllerService.OPERATION_PARTIAL_UPDATE);
-      if (ErrorResult != null) {
-        return ErrorResult;
-      } else {
-
-        // Update only modified values
-        if (product.getAvailable() != null) {
-          existingProduct.setAvailable(product.getAvailable());
-        }
-        if (product.getImageURL() != null) {
-          existingProduct.setImageURL(product.getImageURL());
-        }
-        if (product.getName() != null) {
-          existingProduct.setName(product.getName());
-        }
-        if (product.getPrice() != null) {
-          existingProduct.setPrice(getRoundAmount(product.getPrice()));
+      synchronized (marginAggregates.getLock(product.getReference())) {
+        // Search the product to update
+        Product existingProduct = productDao.findByReference(product.getReference());
+
+        URI uri = microserviceControllerService.createTargetURI(product, PATH_PRODUCT);
+        ErrorResult = microserviceControllerService.prepareEntityForCUD(product, existingProduct,
+            uri, MicroserviceControllerService.OPERATION_PARTIAL_UPDATE);
+        if (ErrorResult != null) {
+          return ErrorResult;
+        } else {
+
+          Margin oldMargin = marginAggregates.calculate(existingProduct);
+
+          // Update only modified values
+          if (product.getAvailable() != null) {
+            existingProduct.setAvailable(product.getAvailable());
+          }
+          if (product.getImageURL() != null) {
+            existingProduct.setImageURL(product.getImageURL());
+          }
+          if (product.getName() != null) {
+            existingProduct.setName(product.getName());
+          }
+          if (product.getPrice() != null) {
+            existingProduct.setPrice(getRoundAmount(product.getPrice()));
+          }
+          if (product.getPurchasePrice() != null) {
+            existingProduct.setPurchasePrice(getRoundAmount(product.getPurchasePrice()));
+          }
+
+          // Save the modification
+          productDao.save(existingProduct);
+          marginAggregates.replace(oldMargin, marginAggregates.calculate(existingProduct));
+          catalogVersion.increment();
+
+          return microserviceControllerService.createResponseBodyCUDSuccessful(existingProduct,
+              uri, MicroserviceControllerService.OPERATION_PARTIAL_UPDATE);
         }
-        if (product.getPurchasePrice() != null) {
-          existingProduct.setPurchasePrice(getRoundAmount(product.getPurchasePrice()));
-        }
-
-        // Save the modification
-        productDao.save(existingProduct);
-
-        return microserviceControllerService.createResponseBodyCUDSuccessful(existingProduct, uri,
-            MicroserviceControllerService.OPERATION_PARTIAL_UPDATE);
       }
     }
   }
@@ -0,0 +1,77 @@
+package com.cambyze.demo.microservices.grocery.products;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import com.cambyze.demo.microservices.grocery.products.dao.ProductDao;
+import com.cambyze.demo.microservices.grocery.products.margins.MarginAggregates;
+import com.cambyze.demo.microservices.grocery.products.margins.MarginSummary;
+import com.cambyze.demo.microservices.grocery.products.model.Product;
+import com.cambyze.demo.microservices.grocery.products.web.controller.ProductController;
+
+/**
+ * 
+ * Class to test that concurrent reservations and releases of the stock of a product, applied to
+ * the margin aggregates without lock, keep them equal to the margins of the committed products
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@SpringBootTest
+class MarginAggregatesConcurrencyTests {
+
+  private static final String REFERENCE = "MARGINTEST01";
+  private static final int STOCK = 1000;
+  private static final int MODIFICATIONS = 400;
+  private static final int THREADS = 32;
+
+  @Autowired
+  private ProductController productController;
+
+  @Autowired
+  private ProductDao productDao;
+
+  @Autowired
+  private MarginAggregates marginAggregates;
+
+  @Test
+  void concurrentStockMovesKeepAggregates() throws Exception {
+    productDao.save(new Product(0, REFERENCE, "Margin test", null, 10.0, 5.0, STOCK));
+    marginAggregates.rebuild();
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    List<Callable<Object>> modifications = new ArrayList<Callable<Object>>();
+    for (int i = 0; i < MODIFICATIONS; i++) {
+      int quantity = 1 + i % 7;
+      if (i % 2 == 0) {
+        modifications.add(() -> productController.releaseStock(REFERENCE, quantity));
+      } else {
+        modifications.add(() -> productController.reserveStock(REFERENCE, quantity));
+      }
+    }
+    try {
+      for (Future<Object> result : executor.invokeAll(modifications)) {
+        result.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    MarginSummary maintained = marginAggregates.getSummary();
+    marginAggregates.rebuild();
+    MarginSummary rebuilt = marginAggregates.getSummary();
+    assertEquals(rebuilt.getProductCount(), maintained.getProductCount());
+    assertEquals(rebuilt.getTotalUnitMargin(), maintained.getTotalUnitMargin());
+    assertEquals(rebuilt.getTotalPotentialMargin(), maintained.getTotalPotentialMargin());
+    assertEquals(rebuilt.getMinUnitMargin(), maintained.getMinUnitMargin());
+    assertEquals(rebuilt.getMaxUnitMargin(), maintained.getMaxUnitMargin());
+  }
+
+}
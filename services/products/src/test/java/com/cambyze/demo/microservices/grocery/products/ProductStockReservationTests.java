@@ -0,0 +1,73 @@
+package com.cambyze.demo.microservices.grocery.products;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import com.cambyze.demo.microservices.grocery.products.dao.ProductDao;
+import com.cambyze.demo.microservices.grocery.products.model.Product;
+import com.cambyze.demo.microservices.grocery.products.web.controller.ProductController;
+
+/**
+ * 
+ * Class to test that concurrent reservations of the stock of a product never oversell it
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@SpringBootTest
+class ProductStockReservationTests {
+
+  private static final String REFERENCE = "STOCKTEST01";
+  private static final int STOCK = 100;
+  private static final int RESERVATIONS = 400;
+  private static final int THREADS = 32;
+
+  @Autowired
+  private ProductController productController;
+
+  @Autowired
+  private ProductDao productDao;
+
+  @Test
+  void concurrentReservationsDoNotOversell() throws Exception {
+    productDao.save(new Product(0, REFERENCE, "Stock test", null, 10.0, 8.0, STOCK));
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    List<Callable<HttpStatus>> reservations = new ArrayList<Callable<HttpStatus>>();
+    for (int i = 0; i < RESERVATIONS; i++) {
+      reservations.add(() -> productController.reserveStock(REFERENCE, 1).getStatusCode());
+    }
+    int reserved = 0;
+    int rejected = 0;
+    try {
+      for (Future<HttpStatus> result : executor.invokeAll(reservations)) {
+        if (result.get() == HttpStatus.CONFLICT) {
+          rejected++;
+        } else {
+          reserved++;
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals(STOCK, reserved);
+    assertEquals(RESERVATIONS - STOCK, rejected);
+    assertEquals(0, productDao.findByReference(REFERENCE).getAvailable());
+
+    ResponseEntity<Object> released = productController.releaseStock(REFERENCE, 5);
+    assertEquals(5, productDao.findByReference(REFERENCE).getAvailable());
+    assertFalse(released.getStatusCode().isError());
+  }
+
+}
@@ -0,0 +1,107 @@
+package com.cambyze.demo.microservices.grocery.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import brave.http.HttpRequest;
+import brave.sampler.RateLimitingSampler;
+import brave.sampler.Sampler;
+import brave.sampler.SamplerFunction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sampler of the new traces by probability and by rate, with rules per route
+ * <p>
+ * Used as sampler of the HTTP requests received (rule of the longest matching path) and as sampler
+ * of the other traces (default rule). A trace started by another service keeps the decision of this
+ * service: the samplers are only called by Brave when the request has no sampled flag. Metrics
+ * published: tracing.sampling.decisions with the tag decision sampled or dropped
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+public class AdaptiveSampler extends Sampler implements SamplerFunction<HttpRequest> {
+
+  private final Pattern skipPattern;
+  private final Sampler defaultSampler;
+  private final List<String> routePaths = new ArrayList<String>();
+  private final List<Sampler> routeSamplers = new ArrayList<Sampler>();
+  private final Counter sampled;
+  private final Counter dropped;
+
+  /**
+   * Constructor
+   * 
+   * @param properties rules of sampling
+   * @param skipPattern paths never sampled (static resources, actuator), may be null
+   * @param meterRegistry registry of the metrics
+   */
+  public AdaptiveSampler(SamplingProperties properties, Pattern skipPattern,
+      MeterRegistry meterRegistry) {
+    this.skipPattern = skipPattern;
+    this.defaultSampler = createSampler(properties.getDefaultRule());
+    // The longest paths first so that the first matching route is the most precise
+    List<Map.Entry<String, SamplingProperties.Rule>> routes =
+        new ArrayList<Map.Entry<String, SamplingProperties.Rule>>(
+            properties.getRoutes().entrySet());
+    routes.sort((route1, route2) -> route2.getKey().length() - route1.getKey().length());
+    for (Map.Entry<String, SamplingProperties.Rule> route : routes) {
+      routePaths.add(route.getKey());
+      routeSamplers.add(createSampler(route.getValue()));
+    }
+    this.sampled = Counter.builder("tracing.sampling.decisions").tag("decision", "sampled")
+        .register(meterRegistry);
+    this.dropped = Counter.builder("tracing.sampling.decisions").tag("decision", "dropped")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public boolean isSampled(long traceId) {
+    return count(defaultSampler.isSampled(traceId));
+  }
+
+  @Override
+  public Boolean trySample(HttpRequest request) {
+    String path = request.path();
+    if (path == null) {
+      return null;
+    }
+    if (skipPattern != null && skipPattern.matcher(path).matches()) {
+      return Boolean.FALSE;
+    }
+    for (int i = 0; i < routePaths.size(); i++) {
+      if (path.startsWith(routePaths.get(i))) {
+        // The trace id is not yet known, the rules do not depend on it
+        return count(routeSamplers.get(i).isSampled(0L));
+      }
+    }
+    // Decided by isSampled with the default rule
+    return null;
+  }
+
+  private boolean count(boolean decision) {
+    if (decision) {
+      sampled.increment();
+    } else {
+      dropped.increment();
+    }
+    return decision;
+  }
+
+  private static Sampler createSampler(SamplingProperties.Rule rule) {
+    Sampler probabilitySampler = Sampler.create(rule.getProbability());
+    if (rule.getTracesPerSecond() <= 0) {
+      return probabilitySampler;
+    }
+    Sampler rateSampler = RateLimitingSampler.create(rule.getTracesPerSecond());
+    return new Sampler() {
+      @Override
+      public boolean isSampled(long traceId) {
+        // The rate is only consumed by the traces passing the probability
+        return probabilitySampler.isSampled(traceId) && rateSampler.isSampled(traceId);
+      }
+    };
+  }
+}
@@ -0,0 +1,52 @@
+package com.cambyze.demo.microservices.grocery.tracing;
+
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.sleuth.instrument.web.HttpServerSampler;
+import org.springframework.cloud.sleuth.instrument.web.SkipPatternProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import brave.handler.FinishedSpanHandler;
+import brave.http.HttpRequest;
+import brave.sampler.SamplerFunction;
+import io.micrometer.core.instrument.MeterRegistry;
+import zipkin2.Span;
+import zipkin2.reporter.Reporter;
+
+/**
+ * Sampling of the traces shared by the modules, imported by their SleuthConfig
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@Configuration
+@EnableConfigurationProperties(SamplingProperties.class)
+public class AdaptiveSamplingConfiguration {
+
+  @Bean
+  public AdaptiveSampler defaultSampler(SamplingProperties properties,
+      ObjectProvider<SkipPatternProvider> skipPatternProvider, MeterRegistry meterRegistry) {
+    SkipPatternProvider provider = skipPatternProvider.getIfAvailable();
+    return new AdaptiveSampler(properties, provider == null ? null : provider.skipPattern(),
+        meterRegistry);
+  }
+
+  @Bean(name = HttpServerSampler.NAME)
+  public SamplerFunction<HttpRequest> httpServerSampler(AdaptiveSampler adaptiveSampler) {
+    return adaptiveSampler;
+  }
+
+  /**
+   * Handler keeping the spans in error or slow of the traces not sampled, only when enabled as it
+   * makes every request record its spans
+   */
+  @Bean
+  @ConditionalOnProperty(name = "cambyze.tracing.sampling.keep-errors-and-slow")
+  public FinishedSpanHandler errorAndSlowSpanHandler(SamplingProperties properties,
+      ObjectProvider<Reporter<Span>> spanReporters, MeterRegistry meterRegistry) {
+    return new ErrorAndSlowSpanHandler(properties.getSlowThresholdMillis(),
+        spanReporters.orderedStream().collect(Collectors.toList()), meterRegistry);
+  }
+}
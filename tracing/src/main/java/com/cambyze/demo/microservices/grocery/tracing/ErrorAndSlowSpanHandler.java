@@ -0,0 +1,106 @@
+package com.cambyze.demo.microservices.grocery.tracing;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import brave.handler.FinishedSpanHandler;
+import brave.handler.MutableSpan;
+import brave.propagation.TraceContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import zipkin2.Endpoint;
+import zipkin2.Span;
+import zipkin2.reporter.Reporter;
+
+/**
+ * Keep the spans in error or slow of the traces not sampled
+ * <p>
+ * Brave gives the spans of the traces not sampled to this handler only because it asks to record
+ * them locally (alwaysSampleLocal): every request then allocates and records its spans, which is
+ * the cost of this handler, so it is enabled only by cambyze.tracing.sampling.keep-errors-and-slow.
+ * The spans in error or longer than the threshold are sent to the span reporters of the service
+ * (Zipkin when configured) as the sampled spans: the trace shows only these spans, the other spans
+ * of the request are not kept. Metrics published: tracing.sampling.decisions with the tag decision
+ * kept
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+public class ErrorAndSlowSpanHandler extends FinishedSpanHandler {
+
+  private static final Logger TRACING_LOGGER = LoggerFactory.getLogger("TRACING");
+
+  private final long slowThresholdMicros;
+  private final List<Reporter<Span>> spanReporters;
+  private final Counter kept;
+
+  /**
+   * Constructor
+   * 
+   * @param slowThresholdMillis duration from which a span is kept
+   * @param spanReporters reporters of the spans of the service
+   * @param meterRegistry registry of the metrics
+   */
+  public ErrorAndSlowSpanHandler(long slowThresholdMillis, List<Reporter<Span>> spanReporters,
+      MeterRegistry meterRegistry) {
+    this.slowThresholdMicros = TimeUnit.MILLISECONDS.toMicros(slowThresholdMillis);
+    this.spanReporters = spanReporters;
+    this.kept = Counter.builder("tracing.sampling.decisions").tag("decision", "kept")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public boolean end(TraceContext context, MutableSpan span) {
+    if (!Boolean.TRUE.equals(context.sampled()) && (span.error() != null
+        || span.tag("error") != null
+        || span.finishTimestamp() - span.startTimestamp() > slowThresholdMicros)) {
+      kept.increment();
+      Span zipkinSpan = toZipkinSpan(context, span);
+      for (Reporter<Span> spanReporter : spanReporters) {
+        spanReporter.report(zipkinSpan);
+      }
+      TRACING_LOGGER.debug("Span not sampled kept: " + zipkinSpan);
+    }
+    return true;
+  }
+
+  @Override
+  public boolean alwaysSampleLocal() {
+    return true;
+  }
+
+  /*
+   * Span in the format of the reporters, as converted by Brave for the sampled spans
+   */
+  private static Span toZipkinSpan(TraceContext context, MutableSpan span) {
+    Span.Builder builder = Span.newBuilder().traceId(context.traceIdString())
+        .parentId(context.parentIdString()).id(context.spanIdString()).name(span.name());
+    if (span.kind() != null) {
+      builder.kind(Span.Kind.valueOf(span.kind().name()));
+    }
+    if (span.startTimestamp() != 0) {
+      builder.timestamp(span.startTimestamp());
+      if (span.finishTimestamp() != 0) {
+        builder.duration(Math.max(span.finishTimestamp() - span.startTimestamp(), 1));
+      }
+    }
+    builder.localEndpoint(Endpoint.newBuilder().serviceName(span.localServiceName())
+        .ip(span.localIp()).port(span.localPort()).build());
+    if (span.remoteServiceName() != null || span.remoteIp() != null) {
+      builder.remoteEndpoint(Endpoint.newBuilder().serviceName(span.remoteServiceName())
+          .ip(span.remoteIp()).port(span.remotePort()).build());
+    }
+    span.forEachTag(Span.Builder::putTag, builder);
+    span.forEachAnnotation(Span.Builder::addAnnotation, builder);
+    if (span.error() != null && span.tag("error") == null) {
+      String message = span.error().getMessage();
+      builder.putTag("error",
+          message != null ? message : span.error().getClass().getSimpleName());
+    }
+    if (span.shared()) {
+      builder.shared(true);
+    }
+    return builder.build();
+  }
+}
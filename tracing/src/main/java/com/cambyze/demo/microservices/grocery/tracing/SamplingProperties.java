@@ -0,0 +1,89 @@
+package com.cambyze.demo.microservices.grocery.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuration of the sampling of the traces, properties cambyze.tracing.sampling.*
+ * <p>
+ * Each service defines its own values in its configuration. The rules per route are keyed by the
+ * beginning of the path, for instance cambyze.tracing.sampling.routes.[/products].probability=0.5
+ * 
+ * @author Thierry Nestelhut
+ * @see <a href="https://github.com/cambyze">cambyze GitHub</a>
+ */
+@ConfigurationProperties(prefix = "cambyze.tracing.sampling")
+public class SamplingProperties {
+
+  // Rule of the traces not started by a configured route
+  private Rule defaultRule = new Rule();
+
+  private Map<String, Rule> routes = new LinkedHashMap<String, Rule>();
+
+  // Record every span locally to report the errors and the slow spans of the traces not sampled,
+  // at the cost of the recording of the spans of all the requests
+  private boolean keepErrorsAndSlow = false;
+
+  private long slowThresholdMillis = 1000;
+
+  public Rule getDefaultRule() {
+    return defaultRule;
+  }
+
+  public void setDefaultRule(Rule defaultRule) {
+    this.defaultRule = defaultRule;
+  }
+
+  public Map<String, Rule> getRoutes() {
+    return routes;
+  }
+
+  public void setRoutes(Map<String, Rule> routes) {
+    this.routes = routes;
+  }
+
+  public boolean isKeepErrorsAndSlow() {
+    return keepErrorsAndSlow;
+  }
+
+  public void setKeepErrorsAndSlow(boolean keepErrorsAndSlow) {
+    this.keepErrorsAndSlow = keepErrorsAndSlow;
+  }
+
+  public long getSlowThresholdMillis() {
+    return slowThresholdMillis;
+  }
+
+  public void setSlowThresholdMillis(long slowThresholdMillis) {
+    this.slowThresholdMillis = slowThresholdMillis;
+  }
+
+  /**
+   * Sampling of the new traces: a trace is sampled when it passes the probability and the rate
+   */
+  public static class Rule {
+
+    // Part of the traces sampled, between 0 and 1
+    private float probability = 0.1f;
+
+    // Maximum of sampled traces per second, 0 no maximum
+    private int tracesPerSecond = 10;
+
+    public float getProbability() {
+      return probability;
+    }
+
+    public void setProbability(float probability) {
+      this.probability = probability;
+    }
+
+    public int getTracesPerSecond() {
+      return tracesPerSecond;
+    }
+
+    public void setTracesPerSecond(int tracesPerSecond) {
+      this.tracesPerSecond = tracesPerSecond;
+    }
+  }
+}